@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.benchmarks;
+
+import com.github.sviperll.PoolConfiguration;
+import com.github.sviperll.PooledResourceProvider;
+import com.github.sviperll.ResourceProvider;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Borrow/return throughput of {@link PooledResourceProvider}.
+ * <p>
+ * Resources are prewarmed and never expire during measurement,
+ * so that only borrower coordination is measured and not resource allocation.
+ * Pool is smaller than number of borrowing threads in contended benchmarks.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PooledResourceProviderBenchmark {
+    @Param({"monitor", "concurrent", "fair"})
+    public String engine;
+
+    @Param({"4"})
+    public int maxAllocated;
+
+    /**
+     * Amount of work done with borrowed resource in {@link Blackhole#consumeCPU(long)} tokens.
+     */
+    @Param({"0", "100"})
+    public long work;
+
+    private ExecutorService workerExecutor;
+    private ResourceProvider<AtomicLong> provider;
+
+    @Setup
+    public void setUp() {
+        workerExecutor = PooledResourceProvider.createWorkerExecutor();
+        PoolConfiguration configuration = PooledResourceProvider.configuration(maxAllocated, TimeUnit.HOURS.toMillis(1))
+                .withConcurrent(engine.equals("concurrent"))
+                .withFair(engine.equals("fair"))
+                .withWorkerExecutor(workerExecutor)
+                .withMinIdle(maxAllocated);
+        provider = PooledResourceProvider.createInstance(configuration, (consumer) -> {
+            consumer.accept(new AtomicLong());
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        workerExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void borrow1(Blackhole blackhole) {
+        borrow(blackhole);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void borrow4(Blackhole blackhole) {
+        borrow(blackhole);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void borrow16(Blackhole blackhole) {
+        borrow(blackhole);
+    }
+
+    private void borrow(Blackhole blackhole) {
+        provider.provideResourceTo((AtomicLong resource) -> {
+            Blackhole.consumeCPU(work);
+            blackhole.consume(resource.incrementAndGet());
+        });
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.benchmarks;
+
+import com.github.sviperll.concurrent.TimeoutingLock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Acquire/release cost of {@link TimeoutingLock} compared to the {@link ReentrantLock} it decorates.
+ * <p>
+ * TimeoutingLock always acquires lock with timed tryLock,
+ * so uncontended and contended cases are measured separately.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeoutingLockBenchmark {
+    private final Lock plainLock = new ReentrantLock();
+    private final Lock timeoutingLock = new TimeoutingLock(new ReentrantLock(), 1, TimeUnit.MINUTES);
+    private long counter = 0;
+
+    @Benchmark
+    @Threads(1)
+    public long reentrantLock() {
+        return increment(plainLock);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long timeoutingLock() {
+        return increment(timeoutingLock);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long contendedReentrantLock() {
+        return increment(plainLock);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long contendedTimeoutingLock() {
+        return increment(timeoutingLock);
+    }
+
+    private long increment(Lock lock) {
+        lock.lock();
+        try {
+            return ++counter;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Resource provider with limited capacity.
+ * <p>
+ * Borrowers can limit time spent waiting for resource to become available.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public interface BoundedResourceProviderDefinition<T> extends ResourceProviderDefinition<T> {
+    /**
+     * Provides resource to consumer unless no resource become available in given time.
+     * <p>
+     * Returns false without calling consumer when provider is exhausted for
+     * longer than given timeout.
+     * Zero timeout means that method never waits for some other borrower to free resource.
+     *
+     * @return true if consumer was called
+     */
+    boolean tryProvideResourceTo(Consumer<? super T> consumer, long timeout, TimeUnit unit);
+
+    /**
+     * Provides count resources to consumer at once unless they are not available in given time.
+     * <p>
+     * Default implementation acquires resources one by one, nesting calls to
+     * {@link BoundedResourceProviderDefinition#tryProvideResourceTo(Consumer, long, TimeUnit)}.
+     * Providers that may run out of resources should acquire them atomically instead,
+     * since two borrowers each holding part of resources may wait for each other forever.
+     *
+     * @return true if consumer was called
+     */
+    default boolean tryProvideResourcesTo(int count, Consumer<? super List<T>> consumer, long timeout, TimeUnit unit) {
+        return ResourceProvider.tryProvideEach(this, count, consumer, timeout, unit);
+    }
+}
@@ -26,16 +26,178 @@
  */
 package com.github.sviperll;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
+/**
+ * Immutable sequence of bytes usable as map key.
+ * <p>
+ * ByteArray may be a view of some region of shared buffer.
+ * Views are created without copying with {@link ByteArray#wrap(byte[], int, int)} and
+ * {@link ByteArray#slice(int, int)}.
+ * Hash code is computed once and cached.
+ * <p>
+ * ByteArrays are ordered lexicographically with bytes treated as unsigned values.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
 public class ByteArray implements Comparable<ByteArray> {
+    /**
+     * Wraps given array without copying.
+     * <p>
+     * Array should never be modified after it is wrapped.
+     */
+    public static ByteArray wrap(byte[] a) {
+        return new ByteArray(a, 0, a.length);
+    }
+
+    /**
+     * Wraps region of given array without copying.
+     * <p>
+     * Region should never be modified after it is wrapped.
+     *
+     * @throws IndexOutOfBoundsException if region is out of array bounds
+     */
+    public static ByteArray wrap(byte[] a, int offset, int length) {
+        checkRegion(a.length, offset, length);
+        return new ByteArray(a, offset, length);
+    }
+
+    /**
+     * Compares two regions lexicographically treating bytes as unsigned values.
+     *
+     * @return negative, zero or positive value if first region is less than, equal to or greater than the second
+     */
+    public static int compareUnsigned(byte[] a, int aOffset, int aLength, byte[] b, int bOffset, int bLength) {
+        int length = Math.min(aLength, bLength);
+        int i = mismatch(a, aOffset, b, bOffset, length);
+        if (i < length)
+            return (a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF);
+        return aLength - bLength;
+    }
+
+    /**
+     * Tests two regions for equality.
+     */
+    public static boolean equals(byte[] a, int aOffset, int aLength, byte[] b, int bOffset, int bLength) {
+        return aLength == bLength && mismatch(a, aOffset, b, bOffset, aLength) == aLength;
+    }
+
+    /**
+     * Hash code of given region.
+     * <p>
+     * Hash code of region is the same as {@link Arrays#hashCode(byte[])} of the copy of region
+     * and as {@link ByteArray#hashCode()} of the view of this region.
+     */
+    public static int hashCode(byte[] a, int offset, int length) {
+        int result = 1;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            result = 31 * result + a[i];
+        }
+        return result;
+    }
+
+    /**
+     * Index of first byte that differs in two regions of given length or length if regions are equal.
+     * <p>
+     * Regions are compared eight bytes at a time as big-endian longs,
+     * so that index of first differing byte is given by leading zeros of xor of differing longs.
+     */
+    private static int mismatch(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        if (a == b && aOffset == bOffset)
+            return length;
+        int i = 0;
+        if (length >= 8) {
+            ByteBuffer aBuffer = ByteBuffer.wrap(a);
+            ByteBuffer bBuffer = ByteBuffer.wrap(b);
+            for (; i + 8 <= length; i += 8) {
+                long difference = aBuffer.getLong(aOffset + i) ^ bBuffer.getLong(bOffset + i);
+                if (difference != 0)
+                    return i + Long.numberOfLeadingZeros(difference) / 8;
+            }
+        }
+        for (; i < length; i++) {
+            if (a[aOffset + i] != b[bOffset + i])
+                return i;
+        }
+        return length;
+    }
+
+    private static void checkRegion(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", array length: " + arrayLength);
+    }
+
     private final byte[] a;
+    private final int offset;
+    private final int length;
+    private int hashCode = 0;
+
     public ByteArray(byte... a) {
-        this.a = Arrays.copyOf(a, a.length);
+        this(Arrays.copyOf(a, a.length), 0, a.length);
+    }
+
+    private ByteArray(byte[] a, int offset, int length) {
+        this.a = a;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public int length() {
+        return length;
     }
 
+    public byte byteAt(int index) {
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+        return a[offset + index];
+    }
+
+    /**
+     * View of the region of this ByteArray.
+     * <p>
+     * Bytes are not copied.
+     *
+     * @throws IndexOutOfBoundsException if region is out of bounds
+     */
+    public ByteArray slice(int offset, int length) {
+        checkRegion(this.length, offset, length);
+        return new ByteArray(a, this.offset + offset, length);
+    }
+
+    public boolean startsWith(ByteArray prefix) {
+        return prefix.length <= length && mismatch(a, offset, prefix.a, prefix.offset, prefix.length) == prefix.length;
+    }
+
+    /**
+     * Copies bytes into given array starting with given offset.
+     */
+    public void copyTo(byte[] destination, int destinationOffset) {
+        System.arraycopy(a, offset, destination, destinationOffset, length);
+    }
+
+    /**
+     * Fresh copy of bytes.
+     */
     public byte[] byteArrayValue() {
-        return Arrays.copyOf(a, a.length);
+        return Arrays.copyOfRange(a, offset, offset + length);
+    }
+
+    /**
+     * Tests if this ByteArray contains the same bytes as given region.
+     */
+    public boolean contentEquals(byte[] b, int bOffset, int bLength) {
+        return equals(a, offset, length, b, bOffset, bLength);
+    }
+
+    /**
+     * Compares this ByteArray with given region.
+     *
+     * @see ByteArray#compareUnsigned(byte[], int, int, byte[], int, int)
+     */
+    public int compareTo(byte[] b, int bOffset, int bLength) {
+        return compareUnsigned(a, offset, length, b, bOffset, bLength);
     }
 
     @Override
@@ -47,24 +209,33 @@ public class ByteArray implements Comparable<ByteArray> {
                 throw new IllegalArgumentException("Is not ByteArray: " + thatObject);
             else {
                 ByteArray that = (ByteArray)thatObject;
-                return this.compareTo(that) == 0;
+                if (this.length != that.length)
+                    return false;
+                if (this.hashCode != 0 && that.hashCode != 0 && this.hashCode != that.hashCode)
+                    return false;
+                return that.contentEquals(this.a, this.offset, this.length);
             }
         }
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(this.a);
+        int result = hashCode;
+        if (result == 0) {
+            result = hashCode(a, offset, length);
+            hashCode = result;
+        }
+        return result;
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("new ByteArray(new byte[] {");
-        sb.append(a[0]);
-        for (int i = 1; i < a.length; i++) {
-            sb.append(", ");
-            sb.append(a[i]);
+        for (int i = 0; i < length; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(a[offset + i]);
         }
         sb.append("})");
         return sb.toString();
@@ -72,15 +243,6 @@ public class ByteArray implements Comparable<ByteArray> {
 
     @Override
     public int compareTo(ByteArray that) {
-        int thisLength = this.byteArrayValue().length;
-        int res = thisLength - that.byteArrayValue().length;
-        if (res != 0)
-            return res;
-        for (int i = 0; i < thisLength; i++) {
-            res = this.byteArrayValue()[i] - that.byteArrayValue()[i];
-            if (res != 0)
-                return res;
-        }
-        return 0;
+        return compareTo(that.a, that.offset, that.length);
     }
 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free worker queue.
+ * <p>
+ * Idle workers are kept in a lock-free stack so that most recently used worker is reused first
+ * and least recently used workers are left alone to expire.
+ * Borrowers that find no idle worker park themselves in a FIFO queue of waiters.
+ * Asynchronous borrowers wait in the same queue without blocking any thread.
+ * Returned worker is handed over directly to the first waiter, so
+ * exactly one waiter is woken up per returned worker.
+ * <p>
+ * Uncontended take and put operations cost a couple of CAS operations.
+ * Borrowers' priority is ignored.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ * @param <W> type of worker
+ */
+class ConcurrentWorkerQueue<W> implements WorkerQueue<W> {
+    private final ConcurrentLinkedDeque<W> idleWorkers = new ConcurrentLinkedDeque<>();
+    private final ConcurrentLinkedQueue<Waiter<W>> waiters = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public W take(BorrowPriority priority) {
+        W worker = idleWorkers.pollFirst();
+        if (worker != null)
+            return worker;
+        return await(false, 0);
+    }
+
+    @Override
+    public W poll(BorrowPriority priority, long timeout, TimeUnit unit) {
+        W worker = idleWorkers.pollFirst();
+        if (worker != null)
+            return worker;
+        long timeoutNanos = unit.toNanos(timeout);
+        if (timeoutNanos <= 0)
+            return null;
+        return await(true, System.nanoTime() + timeoutNanos);
+    }
+
+    @Override
+    public CompletableFuture<W> takeAsync(BorrowPriority priority) {
+        W worker = idleWorkers.pollFirst();
+        if (worker != null)
+            return CompletableFuture.completedFuture(worker);
+        CompletableFuture<W> future = new CompletableFuture<>();
+        worker = enqueue(new Waiter<>(future));
+        if (worker != null)
+            return CompletableFuture.completedFuture(worker);
+        return future;
+    }
+
+    private W await(boolean timed, long deadline) {
+        Waiter<W> waiter = new Waiter<>(Thread.currentThread());
+        W worker = enqueue(waiter);
+        if (worker != null)
+            return worker;
+        worker = waiter.await(timed, deadline);
+        if (worker == null) {
+            // Unlike rare cancellation in enqueue timeouts can pile up when pool is exhausted
+            waiters.remove(waiter);
+        }
+        return worker;
+    }
+
+    /**
+     * Enqueues waiter making sure that idle worker is never left unnoticed.
+     *
+     * @return idle worker when waiter turned out to be unnecessary and was cancelled or null otherwise
+     */
+    private W enqueue(Waiter<W> waiter) {
+        waiters.add(waiter);
+
+        // Worker may have been returned after first poll, but before waiter was enqueued
+        W worker = idleWorkers.pollFirst();
+        if (worker == null)
+            return null;
+        if (waiter.cancel()) {
+            // Cancelled waiter is left in queue and is skipped by put
+            return worker;
+        } else {
+            // Waiter has already been served concurrently
+            put(worker);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(W worker) {
+        for (;;) {
+            Waiter<W> waiter;
+            while ((waiter = waiters.poll()) != null) {
+                if (waiter.handOver(worker))
+                    return;
+            }
+            idleWorkers.offerFirst(worker);
+
+            // Some borrower may have enqueued itself after we've checked for waiters,
+            // but before worker became visible as idle
+            if (waiters.isEmpty())
+                return;
+            worker = idleWorkers.pollFirst();
+            if (worker == null)
+                return;
+        }
+    }
+
+    private static class Waiter<W> {
+        private static final Object CANCELLED = new Object();
+
+        private final Thread thread;
+        private final CompletableFuture<W> future;
+        private final AtomicReference<Object> state = new AtomicReference<>(null);
+
+        Waiter(Thread thread) {
+            this.thread = thread;
+            this.future = null;
+        }
+
+        Waiter(CompletableFuture<W> future) {
+            this.thread = null;
+            this.future = future;
+        }
+
+        boolean handOver(W worker) {
+            if (!state.compareAndSet(null, worker))
+                return false;
+            if (thread != null)
+                LockSupport.unpark(thread);
+            else
+                future.complete(worker);
+            return true;
+        }
+
+        boolean cancel() {
+            return state.compareAndSet(null, CANCELLED);
+        }
+
+        @SuppressWarnings("unchecked")
+        W worker() {
+            return (W)state.get();
+        }
+
+        /**
+         * Waits for worker to be handed over.
+         *
+         * @return worker or null if deadline has passed
+         */
+        W await(boolean timed, long deadline) {
+            boolean interrupted = false;
+            try {
+                while (state.get() == null) {
+                    if (!timed)
+                        LockSupport.park(this);
+                    else {
+                        long remainingNanos = deadline - System.nanoTime();
+                        if (remainingNanos <= 0 && cancel())
+                            return null;
+                        LockSupport.parkNanos(this, remainingNanos);
+                    }
+                    if (Thread.interrupted())
+                        interrupted = true;
+                }
+                return worker();
+            } finally {
+                if (interrupted)
+                    Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Worker queue that serves waiting borrowers in strict order.
+ * <p>
+ * Waiters of higher priority are always served before waiters of lower priority.
+ * Waiters of the same priority are served in FIFO order, both blocked and asynchronous ones.
+ * Returned worker is handed over directly to the first waiter and
+ * idle workers are never left while someone waits,
+ * so newly arrived borrower never overtakes waiting one.
+ * Exactly one waiter is woken up per returned worker.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ * @param <W> type of worker
+ */
+class FairWorkerQueue<W> implements WorkerQueue<W> {
+    private static final BorrowPriority[] PRIORITIES = BorrowPriority.values();
+
+    private final Lock lock = new ReentrantLock();
+    private final Deque<W> idleWorkers = new ArrayDeque<>();
+    private final Deque<Waiter<W>>[] waiters = createWaiters();
+
+    @SuppressWarnings("unchecked")
+    private static <W> Deque<Waiter<W>>[] createWaiters() {
+        Deque<Waiter<W>>[] result = (Deque<Waiter<W>>[])new Deque<?>[PRIORITIES.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new ArrayDeque<>();
+        }
+        return result;
+    }
+
+    @Override
+    public W take(BorrowPriority priority) {
+        return await(priority, false, 0);
+    }
+
+    @Override
+    public W poll(BorrowPriority priority, long timeout, TimeUnit unit) {
+        long timeoutNanos = unit.toNanos(timeout);
+        return await(priority, true, System.nanoTime() + timeoutNanos);
+    }
+
+    @Override
+    public CompletableFuture<W> takeAsync(BorrowPriority priority) {
+        lock.lock();
+        try {
+            W worker = idleWorkers.pollFirst();
+            if (worker != null)
+                return CompletableFuture.completedFuture(worker);
+            Waiter<W> waiter = new Waiter<>(new CompletableFuture<>());
+            waiters[priority.ordinal()].add(waiter);
+            return waiter.future;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private W await(BorrowPriority priority, boolean timed, long deadline) {
+        boolean interrupted = false;
+        lock.lock();
+        try {
+            W worker = idleWorkers.pollFirst();
+            if (worker != null)
+                return worker;
+            if (timed && deadline - System.nanoTime() <= 0)
+                return null;
+            Waiter<W> waiter = new Waiter<>(lock.newCondition());
+            Deque<Waiter<W>> queue = waiters[priority.ordinal()];
+            queue.add(waiter);
+            while (waiter.worker == null) {
+                try {
+                    if (!timed)
+                        waiter.handedOver.await();
+                    else {
+                        long remainingNanos = deadline - System.nanoTime();
+                        if (remainingNanos <= 0) {
+                            queue.remove(waiter);
+                            return null;
+                        }
+                        waiter.handedOver.awaitNanos(remainingNanos);
+                    }
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            return waiter.worker;
+        } finally {
+            lock.unlock();
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void put(W worker) {
+        Waiter<W> waiter;
+        lock.lock();
+        try {
+            waiter = pollWaiter();
+            if (waiter == null) {
+                idleWorkers.addFirst(worker);
+                return;
+            }
+            waiter.worker = worker;
+            if (waiter.handedOver != null) {
+                waiter.handedOver.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        waiter.future.complete(worker);
+    }
+
+    /**
+     * Should be called with lock held
+     */
+    private Waiter<W> pollWaiter() {
+        for (Deque<Waiter<W>> queue: waiters) {
+            Waiter<W> waiter = queue.poll();
+            if (waiter != null)
+                return waiter;
+        }
+        return null;
+    }
+
+    private static class Waiter<W> {
+        private final Condition handedOver;
+        private final CompletableFuture<W> future;
+        private W worker = null;
+
+        Waiter(Condition handedOver) {
+            this.handedOver = handedOver;
+            this.future = null;
+        }
+
+        Waiter(CompletableFuture<W> future) {
+            this.handedOver = null;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Worker queue guarded by single monitor.
+ * <p>
+ * Allocated workers are preferred over unallocated ones.
+ * Every returned worker wakes up all waiting borrowers.
+ * Borrowers' priority is ignored.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ * @param <W> type of worker
+ */
+class MonitorWorkerQueue<W> implements WorkerQueue<W> {
+    private final Deque<W> allocatedWorkers = new ArrayDeque<>();
+    private final Deque<W> unallocatedWorkers = new ArrayDeque<>();
+    private final Deque<CompletableFuture<W>> asynchronousWaiters = new ArrayDeque<>();
+    private final Object lock = new Object();
+    private final Predicate<? super W> isAllocated;
+
+    MonitorWorkerQueue(Predicate<? super W> isAllocated) {
+        this.isAllocated = isAllocated;
+    }
+
+    @Override
+    public W take(BorrowPriority priority) {
+        synchronized (lock) {
+            for (;;) {
+                W worker = pollAvailable();
+                if (worker != null)
+                    return worker;
+                try {
+                    lock.wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    @Override
+    public W poll(BorrowPriority priority, long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (lock) {
+            for (;;) {
+                W worker = pollAvailable();
+                if (worker != null)
+                    return worker;
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0)
+                    return null;
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Asynchronous waiters are served before blocked threads.
+     */
+    @Override
+    public CompletableFuture<W> takeAsync(BorrowPriority priority) {
+        synchronized (lock) {
+            W worker = pollAvailable();
+            if (worker != null)
+                return CompletableFuture.completedFuture(worker);
+            CompletableFuture<W> waiter = new CompletableFuture<>();
+            asynchronousWaiters.add(waiter);
+            return waiter;
+        }
+    }
+
+    /**
+     * Should be called with lock held
+     */
+    private W pollAvailable() {
+        for (;;) {
+            W worker = allocatedWorkers.poll();
+            if (worker != null && !isAllocated.test(worker)) {
+                unallocatedWorkers.push(worker);
+                lock.notifyAll();
+                continue;
+            }
+            if (worker == null)
+                worker = unallocatedWorkers.poll();
+            return worker;
+        }
+    }
+
+    @Override
+    public void put(W worker) {
+        CompletableFuture<W> waiter;
+        synchronized (lock) {
+            waiter = asynchronousWaiters.poll();
+            if (waiter == null) {
+                if (isAllocated.test(worker))
+                    allocatedWorkers.add(worker);
+                else
+                    unallocatedWorkers.push(worker);
+                lock.notifyAll();
+                return;
+            }
+        }
+        waiter.complete(worker);
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Immutable set of parameters of resource pool.
+ * <p>
+ * Use {@link PooledResourceProvider#configuration(int, long)} to get default configuration and
+ * {@link PooledResourceProvider#createInstance(PoolConfiguration, ResourceProviderDefinition)} to
+ * create pool.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public final class PoolConfiguration {
+    private static final Executor THREAD_PER_WORKER = (Runnable runnable) -> {
+        Thread thread = new Thread(runnable);
+        thread.start();
+    };
+
+    static PoolConfiguration createInstance(int maxAllocated, long maxIdleTimeMillis) {
+        if (maxAllocated <= 0)
+            throw new IllegalArgumentException("maxAllocated should be positive: " + maxAllocated);
+        if (maxIdleTimeMillis < 0)
+            throw new IllegalArgumentException("maxIdleTimeMillis should not be negative: " + maxIdleTimeMillis);
+        return new PoolConfiguration(maxAllocated, maxIdleTimeMillis, false, THREAD_PER_WORKER, 0, null, false, 0, 0, false);
+    }
+
+    private final int maxAllocated;
+    private final long maxIdleTimeMillis;
+    private final boolean concurrent;
+    private final Executor workerExecutor;
+    private final int minIdle;
+    private final PoolMetrics metrics;
+    private final boolean validationOnBorrow;
+    private final long validationIntervalMillis;
+    private final long maxLifetimeMillis;
+    private final boolean fair;
+
+    private PoolConfiguration(int maxAllocated,
+                              long maxIdleTimeMillis,
+                              boolean concurrent,
+                              Executor workerExecutor,
+                              int minIdle,
+                              PoolMetrics metrics,
+                              boolean validationOnBorrow,
+                              long validationIntervalMillis,
+                              long maxLifetimeMillis,
+                              boolean fair) {
+        this.maxAllocated = maxAllocated;
+        this.maxIdleTimeMillis = maxIdleTimeMillis;
+        this.concurrent = concurrent;
+        this.workerExecutor = workerExecutor;
+        this.minIdle = minIdle;
+        this.metrics = metrics;
+        this.validationOnBorrow = validationOnBorrow;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.fair = fair;
+    }
+
+    public int maxAllocated() {
+        return maxAllocated;
+    }
+
+    public long maxIdleTimeMillis() {
+        return maxIdleTimeMillis;
+    }
+
+    public boolean concurrent() {
+        return concurrent;
+    }
+
+    public Executor workerExecutor() {
+        return workerExecutor;
+    }
+
+    public int minIdle() {
+        return minIdle;
+    }
+
+    /**
+     * Metrics to collect or null when metrics are not collected.
+     */
+    public PoolMetrics metrics() {
+        return metrics;
+    }
+
+    public boolean validationOnBorrow() {
+        return validationOnBorrow;
+    }
+
+    /**
+     * Interval of background validation of idle resources or zero when idle resources are not validated.
+     */
+    public long validationIntervalMillis() {
+        return validationIntervalMillis;
+    }
+
+    /**
+     * Maximum time resource is kept allocated or zero when resource lifetime is not limited.
+     */
+    public long maxLifetimeMillis() {
+        return maxLifetimeMillis;
+    }
+
+    public boolean fair() {
+        return fair;
+    }
+
+    /**
+     * Selects lock-free pool engine.
+     *
+     * @see PooledResourceProvider#createConcurrentInstance(int, long, ResourceProviderDefinition)
+     */
+    public PoolConfiguration withConcurrent(boolean concurrent) {
+        return new PoolConfiguration(maxAllocated, maxIdleTimeMillis, concurrent, workerExecutor, minIdle, metrics, validationOnBorrow, validationIntervalMillis, maxLifetimeMillis, fair);
+    }
+
+    /**
+     * Sets executor to run resource allocation and idle-expiry loop of every pooled resource.
+     * <p>
+     * Resource is held by the allocation loop for as long as resource lives,
+     * so executor should never queue tasks.
+     * By default new platform thread is started for every allocated resource.
+     *
+     * @see PooledResourceProvider#createWorkerExecutor()
+     */
+    public PoolConfiguration withWorkerExecutor(Executor workerExecutor) {
+        if (workerExecutor == null)
+            throw new NullPointerException("workerExecutor");
+        return new PoolConfiguration(maxAllocated, maxIdleTimeMillis, concurrent, workerExecutor, minIdle, metrics, validationOnBorrow, validationIntervalMillis, maxLifetimeMillis, fair);
+    }
+
+    /**
+     * Sets number of resources that pool keeps allocated regardless of demand.
+     * <p>
+     * minIdle resources are allocated in background as soon as pool is created.
+     * Idle resources are not deallocated after maxIdleTimeMillis while
+     * no more than minIdle resources are idle.
+     * When some resource is deallocated, for example when its lifetime expires, and
+     * less than minIdle resources are left allocated, the resource is allocated anew in background.
+     * This way borrowers never pay resource allocation latency after quiet period.
+     * <p>
+     * By default no resources are allocated until requested.
+     */
+    public PoolConfiguration withMinIdle(int minIdle) {
+        if (minIdle < 0 || minIdle > maxAllocated)
+            throw new IllegalArgumentException("minIdle should be between 0 and maxAllocated (" + maxAllocated + "): " + minIdle);
+        return new PoolConfiguration(maxAllocated, maxIdleTimeMillis, concurrent, workerExecutor, minIdle, metrics, validationOnBorrow, validationIntervalMillis, maxLifetimeMillis, fair);
+    }
+
+    /**
+     * Sets metrics object to record pool activity to.
+     * <p>
+     * By default no metrics are collected.
+     */
+    public PoolConfiguration withMetrics(PoolMetrics metrics) {
+        if (metrics == null)
+            throw new NullPointerException("metrics");
+        return new PoolConfiguration(maxAllocated, maxIdleTimeMillis, concurrent, workerExecutor, minIdle, metrics, validationOnBorrow, validationIntervalMillis, maxLifetimeMillis, fair);
+    }
+
+    /**
+     * Makes pool validate resource before handing it to borrower.
+     * <p>
+     * Resource that fails validation is deallocated and borrower waits for new resource instead.
+     * Freshly allocated resources are handed to borrower without validation.
+     *
+     * @see PooledResourceProvider#createInstance(PoolConfiguration, ResourceProviderDefinition, java.util.function.Predicate)
+     */
+    public PoolConfiguration withValidationOnBorrow(boolean validationOnBorrow) {
+        return new PoolConfiguration(maxAllocated, maxIdleTimeMillis, concurrent, workerExecutor, minIdle, metrics, validationOnBorrow, validationIntervalMillis, maxLifetimeMillis, fair);
+    }
+
+    /**
+     * Makes pool validate idle resources every validationIntervalMillis.
+     * <p>
+     * Validation runs in resource's allocation loop and not in borrower's thread.
+     * Resource that fails validation is deallocated and new resource is allocated in its place
+     * before any borrower asks for it.
+     * Zero disables background validation, which is the default.
+     *
+     * @see PooledResourceProvider#createInstance(PoolConfiguration, ResourceProviderDefinition, java.util.function.Predicate)
+     */
+    public PoolConfiguration withValidationIntervalMillis(long validationIntervalMillis) {
+        if (validationIntervalMillis < 0)
+            throw new IllegalArgumentException("validationIntervalMillis should not be negative: " + validationIntervalMillis);
+        return new PoolConfiguration(maxAllocated, maxIdleTimeMillis, concurrent, workerExecutor, minIdle, metrics, validationOnBorrow, validationIntervalMillis, maxLifetimeMillis, fair);
+    }
+
+    /**
+     * Limits time any resource is kept allocated.
+     * <p>
+     * Resource that is older than maxLifetimeMillis is deallocated as soon as it is returned to pool
+     * and new resource is allocated in its place in background.
+     * Borrowed resources are never taken away from borrowers.
+     * Zero means unlimited lifetime, which is the default.
+     */
+    public PoolConfiguration withMaxLifetimeMillis(long maxLifetimeMillis) {
+        if (maxLifetimeMillis < 0)
+            throw new IllegalArgumentException("maxLifetimeMillis should not be negative: " + maxLifetimeMillis);
+        return new PoolConfiguration(maxAllocated, maxIdleTimeMillis, concurrent, workerExecutor, minIdle, metrics, validationOnBorrow, validationIntervalMillis, maxLifetimeMillis, fair);
+    }
+
+    /**
+     * Selects fair pool engine.
+     * <p>
+     * Fair pool serves waiting borrowers in strict FIFO order and
+     * honours borrowers' {@link BorrowPriority}.
+     * Newly arrived borrower never takes resource while others wait,
+     * so no borrower starves under overload, but throughput is lower than that of
+     * lock-free engine.
+     * This setting overrides {@link PoolConfiguration#withConcurrent(boolean)}.
+     *
+     * @see PooledResourceProvider#createPrioritizedInstance(PoolConfiguration, ResourceProviderDefinition)
+     */
+    public PoolConfiguration withFair(boolean fair) {
+        return new PoolConfiguration(maxAllocated, maxIdleTimeMillis, concurrent, workerExecutor, minIdle, metrics, validationOnBorrow, validationIntervalMillis, maxLifetimeMillis, fair);
+    }
+}
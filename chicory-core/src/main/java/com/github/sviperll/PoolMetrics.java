@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Collects metrics of single resource pool.
+ * <p>
+ * Metrics are collected only when set with {@link PoolConfiguration#withMetrics(PoolMetrics)}.
+ * All recording is done with striped counters, so that collecting metrics
+ * never makes borrowers contend with each other.
+ * <p>
+ * Use {@link PoolMetrics#snapshot()} to get current values.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class PoolMetrics {
+    /**
+     * Histogram bucket i counts wait times less than 2<sup>i</sup> microseconds,
+     * last bucket counts everything that is longer.
+     */
+    static final int HISTOGRAM_BUCKET_COUNT = 28;
+
+    private final AtomicInteger activeCount = new AtomicInteger(0);
+    private final AtomicInteger allocatedCount = new AtomicInteger(0);
+    private final AtomicInteger allocatingCount = new AtomicInteger(0);
+    private final LongAdder borrowTimeoutCount = new LongAdder();
+    private final LongAdder borrowWaitTimeTotalNanos = new LongAdder();
+    private final LongAccumulator borrowWaitTimeMaxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] borrowWaitTimeHistogram = new LongAdder[HISTOGRAM_BUCKET_COUNT];
+    private final LongAdder allocationCount = new LongAdder();
+    private final LongAdder allocationFailureCount = new LongAdder();
+    private final LongAdder allocationTimeTotalNanos = new LongAdder();
+    private final LongAccumulator allocationTimeMaxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder idleEvictionCount = new LongAdder();
+    private final LongAdder lifetimeEvictionCount = new LongAdder();
+    private final LongAdder validationFailureCount = new LongAdder();
+
+    public PoolMetrics() {
+        for (int i = 0; i < borrowWaitTimeHistogram.length; i++) {
+            borrowWaitTimeHistogram[i] = new LongAdder();
+        }
+    }
+
+    public PoolMetricsSnapshot snapshot() {
+        long[] histogram = new long[borrowWaitTimeHistogram.length];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = borrowWaitTimeHistogram[i].sum();
+        }
+        int active = activeCount.get();
+        return new PoolMetricsSnapshot(active,
+                                       Math.max(0, allocatedCount.get() - active),
+                                       allocatingCount.get(),
+                                       borrowTimeoutCount.sum(),
+                                       borrowWaitTimeTotalNanos.sum(),
+                                       borrowWaitTimeMaxNanos.get(),
+                                       histogram,
+                                       allocationCount.sum(),
+                                       allocationFailureCount.sum(),
+                                       allocationTimeTotalNanos.sum(),
+                                       allocationTimeMaxNanos.get(),
+                                       idleEvictionCount.sum(),
+                                       lifetimeEvictionCount.sum(),
+                                       validationFailureCount.sum());
+    }
+
+    /**
+     * Registers metrics as MXBean in platform MBean server.
+     *
+     * @see PoolMetricsMXBean
+     */
+    public void registerMBean(ObjectName name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(new MXBean(), name);
+    }
+
+    void borrowed(long waitNanos) {
+        borrowWaitTimeTotalNanos.add(waitNanos);
+        borrowWaitTimeMaxNanos.accumulate(waitNanos);
+        borrowWaitTimeHistogram[histogramBucket(waitNanos)].increment();
+    }
+
+    void borrowTimedOut() {
+        borrowTimeoutCount.increment();
+    }
+
+    void allocationStarted() {
+        allocatingCount.incrementAndGet();
+    }
+
+    void allocated(long allocationNanos) {
+        allocatingCount.decrementAndGet();
+        allocatedCount.incrementAndGet();
+        allocationCount.increment();
+        allocationTimeTotalNanos.add(allocationNanos);
+        allocationTimeMaxNanos.accumulate(allocationNanos);
+    }
+
+    void allocationFailed() {
+        allocatingCount.decrementAndGet();
+        allocationFailureCount.increment();
+    }
+
+    void consumed() {
+        activeCount.incrementAndGet();
+    }
+
+    void released() {
+        activeCount.decrementAndGet();
+    }
+
+    void evictedAsIdle() {
+        allocatedCount.decrementAndGet();
+        idleEvictionCount.increment();
+    }
+
+    void evictedAsExpired() {
+        allocatedCount.decrementAndGet();
+        lifetimeEvictionCount.increment();
+    }
+
+    void evictedAsInvalid() {
+        allocatedCount.decrementAndGet();
+        validationFailureCount.increment();
+    }
+
+    private static int histogramBucket(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, HISTOGRAM_BUCKET_COUNT - 1);
+    }
+
+    private class MXBean implements PoolMetricsMXBean {
+        @Override
+        public int getActiveCount() {
+            return activeCount.get();
+        }
+
+        @Override
+        public int getIdleCount() {
+            return Math.max(0, allocatedCount.get() - activeCount.get());
+        }
+
+        @Override
+        public int getAllocatingCount() {
+            return allocatingCount.get();
+        }
+
+        @Override
+        public long getBorrowCount() {
+            return snapshot().borrowCount();
+        }
+
+        @Override
+        public long getBorrowTimeoutCount() {
+            return borrowTimeoutCount.sum();
+        }
+
+        @Override
+        public long getBorrowWaitTimeTotalMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(borrowWaitTimeTotalNanos.sum());
+        }
+
+        @Override
+        public long getBorrowWaitTimeMaxMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(borrowWaitTimeMaxNanos.get());
+        }
+
+        @Override
+        public long getBorrowWaitTime99thPercentileMicros() {
+            return snapshot().borrowWaitTimePercentileMicros(99);
+        }
+
+        @Override
+        public long getAllocationCount() {
+            return allocationCount.sum();
+        }
+
+        @Override
+        public long getAllocationFailureCount() {
+            return allocationFailureCount.sum();
+        }
+
+        @Override
+        public long getAllocationTimeTotalMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(allocationTimeTotalNanos.sum());
+        }
+
+        @Override
+        public long getAllocationTimeMaxMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(allocationTimeMaxNanos.get());
+        }
+
+        @Override
+        public long getIdleEvictionCount() {
+            return idleEvictionCount.sum();
+        }
+
+        @Override
+        public long getLifetimeEvictionCount() {
+            return lifetimeEvictionCount.sum();
+        }
+
+        @Override
+        public long getValidationFailureCount() {
+            return validationFailureCount.sum();
+        }
+    }
+}
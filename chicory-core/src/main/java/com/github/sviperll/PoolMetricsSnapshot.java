@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable values of pool metrics at some moment.
+ *
+ * @see PoolMetrics#snapshot()
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public final class PoolMetricsSnapshot {
+    private final int activeCount;
+    private final int idleCount;
+    private final int allocatingCount;
+    private final long borrowTimeoutCount;
+    private final long borrowWaitTimeTotalNanos;
+    private final long borrowWaitTimeMaxNanos;
+    private final long[] borrowWaitTimeHistogram;
+    private final long allocationCount;
+    private final long allocationFailureCount;
+    private final long allocationTimeTotalNanos;
+    private final long allocationTimeMaxNanos;
+    private final long idleEvictionCount;
+    private final long lifetimeEvictionCount;
+    private final long validationFailureCount;
+
+    PoolMetricsSnapshot(int activeCount,
+                        int idleCount,
+                        int allocatingCount,
+                        long borrowTimeoutCount,
+                        long borrowWaitTimeTotalNanos,
+                        long borrowWaitTimeMaxNanos,
+                        long[] borrowWaitTimeHistogram,
+                        long allocationCount,
+                        long allocationFailureCount,
+                        long allocationTimeTotalNanos,
+                        long allocationTimeMaxNanos,
+                        long idleEvictionCount,
+                        long lifetimeEvictionCount,
+                        long validationFailureCount) {
+        this.activeCount = activeCount;
+        this.idleCount = idleCount;
+        this.allocatingCount = allocatingCount;
+        this.borrowTimeoutCount = borrowTimeoutCount;
+        this.borrowWaitTimeTotalNanos = borrowWaitTimeTotalNanos;
+        this.borrowWaitTimeMaxNanos = borrowWaitTimeMaxNanos;
+        this.borrowWaitTimeHistogram = borrowWaitTimeHistogram;
+        this.allocationCount = allocationCount;
+        this.allocationFailureCount = allocationFailureCount;
+        this.allocationTimeTotalNanos = allocationTimeTotalNanos;
+        this.allocationTimeMaxNanos = allocationTimeMaxNanos;
+        this.idleEvictionCount = idleEvictionCount;
+        this.lifetimeEvictionCount = lifetimeEvictionCount;
+        this.validationFailureCount = validationFailureCount;
+    }
+
+    /**
+     * Number of resources currently borrowed.
+     */
+    public int activeCount() {
+        return activeCount;
+    }
+
+    /**
+     * Number of allocated resources that are not currently borrowed.
+     */
+    public int idleCount() {
+        return idleCount;
+    }
+
+    /**
+     * Number of resources being allocated right now.
+     */
+    public int allocatingCount() {
+        return allocatingCount;
+    }
+
+    /**
+     * Number of borrowers that got some resource.
+     */
+    public long borrowCount() {
+        long count = 0;
+        for (long bucketCount: borrowWaitTimeHistogram) {
+            count += bucketCount;
+        }
+        return count;
+    }
+
+    /**
+     * Number of borrowers that gave up waiting for resource.
+     */
+    public long borrowTimeoutCount() {
+        return borrowTimeoutCount;
+    }
+
+    /**
+     * Total time borrowers spent waiting for resources to be returned by other borrowers.
+     * <p>
+     * Resource allocation time is not included, see {@link PoolMetricsSnapshot#allocationTimeTotal(TimeUnit)}.
+     */
+    public long borrowWaitTimeTotal(TimeUnit unit) {
+        return unit.convert(borrowWaitTimeTotalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long borrowWaitTimeMax(TimeUnit unit) {
+        return unit.convert(borrowWaitTimeMaxNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Number of histogram buckets.
+     *
+     * @see PoolMetricsSnapshot#borrowWaitTimeHistogramBucketCount(int)
+     */
+    public int borrowWaitTimeHistogramSize() {
+        return borrowWaitTimeHistogram.length;
+    }
+
+    /**
+     * Number of borrowers that waited less than
+     * {@link PoolMetricsSnapshot#borrowWaitTimeHistogramBucketUpperBoundMicros(int)}
+     * but not less than upper bound of previous bucket.
+     */
+    public long borrowWaitTimeHistogramBucketCount(int bucket) {
+        return borrowWaitTimeHistogram[bucket];
+    }
+
+    /**
+     * Exclusive upper bound of histogram bucket, that is 2<sup>bucket</sup> microseconds.
+     * Last bucket has no upper bound and {@link Long#MAX_VALUE} is returned.
+     */
+    public long borrowWaitTimeHistogramBucketUpperBoundMicros(int bucket) {
+        if (bucket < 0 || bucket >= borrowWaitTimeHistogram.length)
+            throw new IndexOutOfBoundsException("No such bucket: " + bucket);
+        return bucket == borrowWaitTimeHistogram.length - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    /**
+     * Upper bound of wait time of given percent of borrowers.
+     * <p>
+     * Result is accurate up to histogram bucket size, that is up to factor of two.
+     */
+    public long borrowWaitTimePercentileMicros(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Percentile should be between 0 and 100: " + percentile);
+        long count = borrowCount();
+        if (count == 0)
+            return 0;
+        long threshold = (long)Math.ceil(count * percentile / 100);
+        long accumulated = 0;
+        for (int bucket = 0; bucket < borrowWaitTimeHistogram.length - 1; bucket++) {
+            accumulated += borrowWaitTimeHistogram[bucket];
+            if (accumulated >= threshold)
+                return borrowWaitTimeHistogramBucketUpperBoundMicros(bucket);
+        }
+        return TimeUnit.NANOSECONDS.toMicros(borrowWaitTimeMaxNanos);
+    }
+
+    /**
+     * Number of successfully allocated resources.
+     */
+    public long allocationCount() {
+        return allocationCount;
+    }
+
+    /**
+     * Number of resource allocations that ended with an error.
+     */
+    public long allocationFailureCount() {
+        return allocationFailureCount;
+    }
+
+    public long allocationTimeTotal(TimeUnit unit) {
+        return unit.convert(allocationTimeTotalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long allocationTimeMax(TimeUnit unit) {
+        return unit.convert(allocationTimeMaxNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Number of resources deallocated after being idle for maxIdleTimeMillis.
+     */
+    public long idleEvictionCount() {
+        return idleEvictionCount;
+    }
+
+    /**
+     * Number of resources deallocated after being allocated for maxLifetimeMillis.
+     */
+    public long lifetimeEvictionCount() {
+        return lifetimeEvictionCount;
+    }
+
+    /**
+     * Number of resources deallocated after failed validation.
+     */
+    public long validationFailureCount() {
+        return validationFailureCount;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolMetricsSnapshot{" + "activeCount=" + activeCount
+                + ", idleCount=" + idleCount
+                + ", allocatingCount=" + allocatingCount
+                + ", borrowCount=" + borrowCount()
+                + ", borrowTimeoutCount=" + borrowTimeoutCount
+                + ", borrowWaitTimeTotalNanos=" + borrowWaitTimeTotalNanos
+                + ", borrowWaitTimeMaxNanos=" + borrowWaitTimeMaxNanos
+                + ", borrowWaitTimeHistogram=" + Arrays.toString(borrowWaitTimeHistogram)
+                + ", allocationCount=" + allocationCount
+                + ", allocationFailureCount=" + allocationFailureCount
+                + ", allocationTimeTotalNanos=" + allocationTimeTotalNanos
+                + ", allocationTimeMaxNanos=" + allocationTimeMaxNanos
+                + ", idleEvictionCount=" + idleEvictionCount
+                + ", lifetimeEvictionCount=" + lifetimeEvictionCount
+                + ", validationFailureCount=" + validationFailureCount + '}';
+    }
+}
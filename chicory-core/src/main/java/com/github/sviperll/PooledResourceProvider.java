@@ -30,190 +30,897 @@
 
 package com.github.sviperll;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.IntStream;
 
 /**
  *
  * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
  * @param <T>
  */
-public class PooledResourceProvider<T> implements ResourceProviderDefinition<T> {
+public class PooledResourceProvider<T>
+        implements BoundedResourceProviderDefinition<T>, AsynchronousResourceProviderDefinition<T> {
 
     private static final Logger logger = Logger.getLogger(PooledResourceProvider.class.getName());
 
+    /**
+     * Creates pool of resources that allocates at most maxAllocated resources simultaneously.
+     * <p>
+     * Borrowers are coordinated with single monitor.
+     * Allocated resources are deallocated after being idle for maxIdleTimeMillis.
+     */
     public static <T> ResourceProvider<T> createInstance(
             int maxAllocated,
             long maxIdleTimeMillis,
             ResourceProviderDefinition<T> provider) {
 
-        PooledResourceProvider<T> pooledResourceProvider =
-                new PooledResourceProvider<>(maxAllocated, () -> new Worker<>(provider, maxIdleTimeMillis));
+        return createInstance(configuration(maxAllocated, maxIdleTimeMillis), provider);
+    }
+
+    /**
+     * Creates pool of resources that allocates at most maxAllocated resources simultaneously.
+     * <p>
+     * Unlike {@link PooledResourceProvider#createInstance(int, long, ResourceProviderDefinition)}
+     * borrowers are coordinated without locks.
+     * Idle resources are acquired and released with CAS operations and waiting borrowers
+     * are served in FIFO order, single borrower is woken up per released resource.
+     * <p>
+     * Allocated resources are deallocated after being idle for maxIdleTimeMillis.
+     */
+    public static <T> ResourceProvider<T> createConcurrentInstance(
+            int maxAllocated,
+            long maxIdleTimeMillis,
+            ResourceProviderDefinition<T> provider) {
+
+        return createInstance(configuration(maxAllocated, maxIdleTimeMillis).withConcurrent(true), provider);
+    }
+
+    /**
+     * Creates pool of resources with given configuration.
+     *
+     * @see PooledResourceProvider#configuration(int, long)
+     */
+    public static <T> ResourceProvider<T> createInstance(
+            PoolConfiguration configuration,
+            ResourceProviderDefinition<T> provider) {
+
+        return createInstance(configuration, provider, (T value) -> true);
+    }
+
+    /**
+     * Creates pool of resources with given configuration and resource validator.
+     * <p>
+     * Validator should return false for resources that are no longer usable.
+     * Validator that throws exception is treated as failed validation.
+     * Validator is called when resource is borrowed if
+     * {@link PoolConfiguration#withValidationOnBorrow(boolean)} is set and
+     * periodically for idle resources if
+     * {@link PoolConfiguration#withValidationIntervalMillis(long)} is set.
+     * Invalid resources are deallocated and replaced with new ones.
+     */
+    public static <T> ResourceProvider<T> createInstance(
+            PoolConfiguration configuration,
+            ResourceProviderDefinition<T> provider,
+            Predicate<? super T> validator) {
+
+        PooledResourceProvider<T> pooledResourceProvider = new PooledResourceProvider<>(configuration, provider, validator);
         return ResourceProvider.of(pooledResourceProvider);
     }
 
-    private final Deque<Worker<T>> allocatedWorkers = new ArrayDeque<>();
-    private final Deque<Worker<T>> unallocatedWorkers = new ArrayDeque<>();
-    private final Object lock = new Object();
+    /**
+     * Creates fair pool of resources shared between borrowers of different priority.
+     * <p>
+     * When pool is exhausted, waiting borrowers of higher priority are served first and
+     * borrowers of the same priority are served in FIFO order.
+     *
+     * @see PoolConfiguration#withFair(boolean)
+     */
+    public static <T> PrioritizedResourceProvider<T> createPrioritizedInstance(
+            PoolConfiguration configuration,
+            ResourceProviderDefinition<T> provider) {
 
-    private PooledResourceProvider(int maxAllocated, Supplier<Worker<T>> workerFactory) {
-        IntStream.range(0, maxAllocated).forEach(i -> unallocatedWorkers.push(workerFactory.get()));
+        return createPrioritizedInstance(configuration, provider, (T value) -> true);
+    }
+
+    /**
+     * Creates fair pool of resources shared between borrowers of different priority with given resource validator.
+     *
+     * @see PooledResourceProvider#createPrioritizedInstance(PoolConfiguration, ResourceProviderDefinition)
+     * @see PooledResourceProvider#createInstance(PoolConfiguration, ResourceProviderDefinition, Predicate)
+     */
+    public static <T> PrioritizedResourceProvider<T> createPrioritizedInstance(
+            PoolConfiguration configuration,
+            ResourceProviderDefinition<T> provider,
+            Predicate<? super T> validator) {
+
+        PooledResourceProvider<T> pooledResourceProvider =
+                new PooledResourceProvider<>(configuration.withFair(true), provider, validator);
+        return new PrioritizedResourceProvider<>(pooledResourceProvider);
+    }
+
+    /**
+     * Default pool configuration that allocates at most maxAllocated resources simultaneously
+     * and deallocates resources after being idle for maxIdleTimeMillis.
+     */
+    public static PoolConfiguration configuration(int maxAllocated, long maxIdleTimeMillis) {
+        return PoolConfiguration.createInstance(maxAllocated, maxIdleTimeMillis);
+    }
+
+    /**
+     * Executor suitable to run pooled resources' allocation loops.
+     * <p>
+     * Returns virtual thread per task executor when running on Java 21 or later.
+     * Otherwise returns executor that reuses daemon threads left from deallocated resources,
+     * so that thread is not created for every resource allocation.
+     *
+     * @see PoolConfiguration#withWorkerExecutor(java.util.concurrent.Executor)
+     */
+    public static ExecutorService createWorkerExecutor() {
+        try {
+            Object executor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            return (ExecutorService)executor;
+        } catch (ReflectiveOperationException ex) {
+            logger.log(Level.FINE, "Virtual threads are not available: falling back to cached thread pool", ex);
+            return Executors.newCachedThreadPool(new WorkerThreadFactory());
+        }
+    }
+
+    private final PoolConfiguration configuration;
+    private final ResourceProviderDefinition<T> provider;
+    private final Predicate<? super T> validator;
+    private final WorkerQueue<Worker> workers;
+    private final AtomicInteger allocatedCount;
+    private final AtomicInteger idleCount;
+    private final Lock batchLock;
+    private final BorrowPriority priority;
+
+    private PooledResourceProvider(PoolConfiguration configuration,
+                                   ResourceProviderDefinition<T> provider,
+                                   Predicate<? super T> validator) {
+        this.configuration = configuration;
+        this.provider = provider;
+        this.validator = validator;
+        this.allocatedCount = new AtomicInteger(0);
+        this.idleCount = new AtomicInteger(0);
+        this.batchLock = new ReentrantLock();
+        this.priority = BorrowPriority.NORMAL;
+        if (configuration.fair())
+            workers = new FairWorkerQueue<>();
+        else if (configuration.concurrent())
+            workers = new ConcurrentWorkerQueue<>();
+        else
+            workers = new MonitorWorkerQueue<>(Worker::isAllocated);
+
+        // Workers are put in reverse order, so that prewarmed ones are taken first
+        List<Worker> prewarmed = new ArrayList<>();
+        for (int i = 0; i < configuration.maxAllocated(); i++) {
+            Worker worker = new Worker();
+            if (i < configuration.minIdle())
+                prewarmed.add(worker);
+            else
+                workers.put(worker);
+        }
+        for (Worker worker: prewarmed) {
+            worker.startAllocation();
+            workers.put(worker);
+        }
+    }
+
+    /**
+     * View of the same pool for borrowers of given priority.
+     */
+    private PooledResourceProvider(PooledResourceProvider<T> pool, BorrowPriority priority) {
+        this.configuration = pool.configuration;
+        this.provider = pool.provider;
+        this.validator = pool.validator;
+        this.workers = pool.workers;
+        this.allocatedCount = pool.allocatedCount;
+        this.idleCount = pool.idleCount;
+        this.batchLock = pool.batchLock;
+        this.priority = priority;
+    }
+
+    /**
+     * Returns view of this pool for borrowers of given priority.
+     */
+    PooledResourceProvider<T> withPriority(BorrowPriority priority) {
+        return priority == this.priority ? this : new PooledResourceProvider<>(this, priority);
     }
 
     @Override
     public void provideResourceTo(Consumer<? super T> consumer) {
-        Worker<T> worker = null;
-        synchronized (lock) {
-            for (;;) {
-                worker = allocatedWorkers.poll();
-                if (worker != null && !worker.isAllocated()) {
-                    unallocatedWorkers.push(worker);
-                    lock.notifyAll();
-                    continue;
+        PoolMetrics metrics = configuration.metrics();
+        long waitStart = metrics == null ? 0 : System.nanoTime();
+        Worker worker = workers.take(priority);
+        if (metrics != null)
+            metrics.borrowed(System.nanoTime() - waitStart);
+        try {
+            worker.provideResourceTo(consumer);
+        } finally {
+            workers.put(worker);
+        }
+    }
+
+    /**
+     * Provides resource to consumer unless all resources are borrowed by others for longer than given time.
+     * <p>
+     * Timeout limits only time spent waiting for other borrowers.
+     * Time spent for resource allocation is not limited.
+     */
+    @Override
+    public boolean tryProvideResourceTo(Consumer<? super T> consumer, long timeout, TimeUnit unit) {
+        PoolMetrics metrics = configuration.metrics();
+        long waitStart = metrics == null ? 0 : System.nanoTime();
+        Worker worker = workers.poll(priority, timeout, unit);
+        if (worker == null) {
+            if (metrics != null)
+                metrics.borrowTimedOut();
+            return false;
+        }
+        if (metrics != null)
+            metrics.borrowed(System.nanoTime() - waitStart);
+        try {
+            worker.provideResourceTo(consumer);
+            return true;
+        } finally {
+            workers.put(worker);
+        }
+    }
+
+    /**
+     * Provides count distinct resources to consumer at once.
+     * <p>
+     * Either all count resources are acquired or none at all.
+     * Only single batch borrower accumulates resources at any moment,
+     * so that two batch borrowers never deadlock each holding part of the pool.
+     * All count resources are allocated in parallel.
+     * <p>
+     * Timeout limits only time spent waiting for other borrowers.
+     * Time spent for resource allocation is not limited.
+     *
+     * @return true if consumer was called and false if count resources were not available in given time
+     * @throws IllegalArgumentException if count is greater than maximum number of allocated resources
+     */
+    @Override
+    public boolean tryProvideResourcesTo(int count, Consumer<? super List<T>> consumer, long timeout, TimeUnit unit) {
+        if (count < 0 || count > configuration.maxAllocated())
+            throw new IllegalArgumentException("count should be between 0 and maxAllocated (" + configuration.maxAllocated() + "): " + count);
+        PoolMetrics metrics = configuration.metrics();
+        long waitStart = System.nanoTime();
+        long deadline = waitStart + unit.toNanos(timeout);
+        List<Worker> borrowed = new ArrayList<>(count);
+        try {
+            if (!lockBatch(deadline)) {
+                if (metrics != null)
+                    metrics.borrowTimedOut();
+                return false;
+            }
+            try {
+                while (borrowed.size() < count) {
+                    long remainingNanos = Math.max(0, deadline - System.nanoTime());
+                    Worker worker = workers.poll(priority, remainingNanos, TimeUnit.NANOSECONDS);
+                    if (worker == null) {
+                        if (metrics != null)
+                            metrics.borrowTimedOut();
+                        return false;
+                    }
+                    borrowed.add(worker);
                 }
-                if (worker == null)
-                    worker = unallocatedWorkers.poll();
-                if (worker != null)
-                    break;
+            } finally {
+                batchLock.unlock();
+            }
+            if (metrics != null) {
+                // Every resource of the batch waited until the whole batch was gathered
+                long waitNanos = System.nanoTime() - waitStart;
+                for (int i = 0; i < count; i++) {
+                    metrics.borrowed(waitNanos);
+                }
+            }
+            provideResourcesTo(borrowed, consumer);
+            return true;
+        } finally {
+            for (Worker worker: borrowed) {
+                workers.put(worker);
+            }
+        }
+    }
+
+    private boolean lockBatch(long deadline) {
+        boolean interrupted = false;
+        try {
+            for (;;) {
                 try {
-                    lock.wait();
+                    long remainingNanos = Math.max(0, deadline - System.nanoTime());
+                    return batchLock.tryLock(remainingNanos, TimeUnit.NANOSECONDS);
                 } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
+                    interrupted = true;
                 }
             }
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
         }
-        if (!worker.isAllocated()) {
-            Thread thread = new Thread(worker);
-            thread.start();
+    }
+
+    private void provideResourcesTo(List<Worker> borrowed, Consumer<? super List<T>> consumer) {
+        for (Worker worker: borrowed) {
+            worker.startAllocation();
         }
+        List<Worker> acquired = new ArrayList<>(borrowed.size());
         try {
-            worker.provideResourceTo(consumer);
+            List<T> values = new ArrayList<>(borrowed.size());
+            for (Worker worker: borrowed) {
+                values.add(worker.acquire());
+                acquired.add(worker);
+            }
+            consumer.accept(Collections.unmodifiableList(values));
         } finally {
-            synchronized (lock) {
-                allocatedWorkers.add(worker);
-                lock.notifyAll();
+            for (Worker worker: acquired) {
+                worker.release();
             }
         }
     }
 
+    /**
+     * Provides resource to given function without blocking current thread.
+     * <p>
+     * When pool is exhausted borrower waits in the same queue as blocked borrowers,
+     * but without holding any thread.
+     * Function is called in the current thread when resource is immediately available and
+     * in {@link java.util.concurrent.ForkJoinPool#commonPool()} otherwise.
+     */
+    @Override
+    public <R> CompletionStage<R> provideResourceAsync(Function<? super T, ? extends CompletionStage<R>> function) {
+        PoolMetrics metrics = configuration.metrics();
+        long waitStart = metrics == null ? 0 : System.nanoTime();
+        CompletableFuture<Worker> worker = workers.takeAsync(priority);
+        Function<Worker, CompletableFuture<R>> borrow = (Worker borrowed) -> {
+            if (metrics != null)
+                metrics.borrowed(System.nanoTime() - waitStart);
+            return borrowed.provideResourceAsync(function).whenComplete((R result, Throwable exception) -> {
+                workers.put(borrowed);
+            });
+        };
+        if (worker.isDone())
+            return borrow.apply(worker.join());
+        else {
+            // Worker is handed over by the thread that returns it, so we should not occupy that thread
+            return worker.thenComposeAsync(borrow);
+        }
+    }
+
     private enum WorkerState {
-        UNALLOCATED, UNCONSUMED, CONSUMED, UNCONSUMED_ALLOCATION_ERROR;
+        UNALLOCATED, ALLOCATING, UNCONSUMED, VALIDATING, CONSUMED, INVALID, DEALLOCATING, UNCONSUMED_ALLOCATION_ERROR;
     }
 
-    private static class Worker<T> implements Runnable {
-        private final ResourceProviderDefinition<T> provider;
-        private final long maxIdleTimeMillis;
+    private enum Eviction {
+        IDLE, EXPIRED, INVALID;
+    }
+
+    /**
+     * Worker holds single pooled resource.
+     * <p>
+     * Worker's allocation loop blocks inside resource's provider for as long as resource lives.
+     * Worker is coordinated with {@link java.util.concurrent.locks.Lock} and never with monitors,
+     * so that virtual thread running allocation loop is unmounted from carrier thread while waiting.
+     */
+    private class Worker implements Runnable {
+        private final Lock lock = new ReentrantLock();
+        private final Condition stateChanged = lock.newCondition();
         private WorkerState state = WorkerState.UNALLOCATED;
         private T value = null;
         private RuntimeException exception = null;
-
-        private Worker(ResourceProviderDefinition<T> provider, long maxIdleTimeMillis) {
-            this.provider = provider;
-            this.maxIdleTimeMillis = maxIdleTimeMillis;
-        }
+        private long allocationStartNanos = 0;
+        private long allocatedNanos = 0;
+        private boolean replacementNeeded = false;
+        private boolean countedAsIdle = false;
+        private CompletableFuture<Void> readinessListener = null;
 
         @Override
         public void run() {
-            logger.log(Level.FINE, "[Worker {0}]: allocating resource", this);
-            try {
-                provider.provideResourceTo(this::withValue);
-            } catch (RuntimeException ex) {
-                synchronized (this) {
-                    logger.log(Level.FINE, "[Worker {0}]: switching to error state", this);
-                    exception = ex;
-                    switchToState(WorkerState.UNCONSUMED_ALLOCATION_ERROR);
+            for (;;) {
+                logger.log(Level.FINE, "[Worker {0}]: allocating resource", this);
+                Property<Boolean> provided = new Property<>(false);
+                try {
+                    provider.provideResourceTo((T value) -> {
+                        provided.set(true);
+                        withValue(value);
+                    });
+                } catch (RuntimeException ex) {
+                    if (provided.get()) {
+                        if (logger.isLoggable(Level.FINE))
+                            logger.log(Level.FINE, MessageFormat.format("[Worker {0}]: error while deallocating resource", this), ex);
+                    } else {
+                        lock.lock();
+                        try {
+                            logger.log(Level.FINE, "[Worker {0}]: switching to error state", this);
+                            exception = ex;
+                            switchToState(WorkerState.UNCONSUMED_ALLOCATION_ERROR);
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                }
+                lock.lock();
+                try {
+                    if (!provided.get() && state == WorkerState.ALLOCATING) {
+                        logger.log(Level.FINE, "[Worker {0}]: resource was never provided: switching to error state", this);
+                        exception = new IllegalStateException("Resource provider returned without providing any resource");
+                        switchToState(WorkerState.UNCONSUMED_ALLOCATION_ERROR);
+                    }
+                    if (state == WorkerState.DEALLOCATING)
+                        switchToUnallocated();
+                    boolean shouldReplenish = replacementNeeded || allocatedCount.get() < configuration.minIdle();
+                    replacementNeeded = false;
+                    if (state != WorkerState.UNALLOCATED || !shouldReplenish || !switchToAllocating()) {
+                        break;
+                    }
+                    logger.log(Level.FINE, "[Worker {0}]: resource was evicted or less than minIdle resources are allocated: replenishing", this);
+                } finally {
+                    lock.unlock();
                 }
             }
             logger.log(Level.FINE, "[Worker {0}]: exiting", this);
         }
 
-        private synchronized void withValue(T value) {
-            logger.log(Level.FINE, "[Worker {0}]: switching to allocated state: waiting for consumers", this);
-            this.value = value;
-            switchToState(WorkerState.UNCONSUMED);
+        private void withValue(T value) {
+            lock.lock();
+            try {
+                logger.log(Level.FINE, "[Worker {0}]: switching to allocated state: waiting for consumers", this);
+                this.value = value;
+                allocatedNanos = System.nanoTime();
+                allocatedCount.incrementAndGet();
+                switchToState(WorkerState.UNCONSUMED);
 
-            for (;;) {
-                sleepWhileConsumed();
-                waitMaximumUnconsumedTime();
-                if (state == WorkerState.UNCONSUMED) {
-                    logger.log(Level.FINE, "[Worker {0}]: idle for too long: exiting", this);
-                    switchToUnallocated();
-                    break;
+                for (;;) {
+                    sleepWhileConsumed();
+                    Eviction eviction = state == WorkerState.INVALID ? Eviction.INVALID : waitWhileIdle();
+                    if (eviction != null) {
+                        evict(eviction);
+                        break;
+                    }
                 }
+            } finally {
+                lock.unlock();
             }
         }
-        
-        
-        private synchronized void switchToState(WorkerState state) {
-            logger.log(Level.FINE, "[Worker {0}]: switching to {1} state", new Object[]{this, state});
+
+        /**
+         * Should be called with lock held
+         */
+        private void evict(Eviction eviction) {
+            if (logger.isLoggable(Level.FINE))
+                logger.log(Level.FINE, "[Worker {0}]: evicting resource as {1}: exiting", new Object[]{this, eviction});
+            allocatedCount.decrementAndGet();
+            PoolMetrics metrics = configuration.metrics();
+            if (metrics != null) {
+                if (eviction == Eviction.IDLE)
+                    metrics.evictedAsIdle();
+                else if (eviction == Eviction.EXPIRED)
+                    metrics.evictedAsExpired();
+                else
+                    metrics.evictedAsInvalid();
+            }
+            replacementNeeded = eviction != Eviction.IDLE;
+            // Worker becomes UNALLOCATED only after provider returns,
+            // so that new resource is never allocated before the old one is deallocated
+            value = null;
+            switchToState(WorkerState.DEALLOCATING);
+        }
+
+        /**
+         * Should be called with lock held
+         */
+        private void switchToState(WorkerState state) {
+            if (logger.isLoggable(Level.FINE))
+                logger.log(Level.FINE, "[Worker {0}]: switching to {1} state", new Object[]{this, state});
+            PoolMetrics metrics = configuration.metrics();
+            if (metrics != null)
+                recordTransition(metrics, this.state, state);
+            boolean isIdle = state == WorkerState.UNCONSUMED;
+            if (isIdle && !countedAsIdle)
+                idleCount.incrementAndGet();
+            else if (!isIdle && countedAsIdle)
+                idleCount.decrementAndGet();
+            countedAsIdle = isIdle;
             this.state = state;
-            notifyAll();
+            stateChanged.signalAll();
+            if (readinessListener != null && isReady(state)) {
+                // Listener's dependent actions are asynchronous, so it is safe to complete it with lock held
+                CompletableFuture<Void> listener = readinessListener;
+                readinessListener = null;
+                listener.complete(null);
+            }
         }
-                
-        private synchronized void switchToUnallocated() {
+
+        /**
+         * Should be called with lock held
+         */
+        private void recordTransition(PoolMetrics metrics, WorkerState from, WorkerState to) {
+            if (to == WorkerState.ALLOCATING) {
+                allocationStartNanos = System.nanoTime();
+                metrics.allocationStarted();
+            } else if (from == WorkerState.ALLOCATING && to == WorkerState.UNCONSUMED) {
+                metrics.allocated(System.nanoTime() - allocationStartNanos);
+            } else if (from == WorkerState.ALLOCATING && to == WorkerState.UNCONSUMED_ALLOCATION_ERROR) {
+                metrics.allocationFailed();
+            } else if (from != WorkerState.CONSUMED && to == WorkerState.CONSUMED) {
+                metrics.consumed();
+            } else if (from == WorkerState.CONSUMED && to == WorkerState.UNCONSUMED) {
+                metrics.released();
+            }
+        }
+
+        /**
+         * Ready state is the one borrower can act upon.
+         */
+        private boolean isReady(WorkerState state) {
+            return state == WorkerState.UNALLOCATED
+                   || state == WorkerState.UNCONSUMED
+                   || state == WorkerState.UNCONSUMED_ALLOCATION_ERROR;
+        }
+
+        /**
+         * Should be called with lock held
+         */
+        private void switchToUnallocated() {
             logger.log(Level.FINE, "[Worker {0}]: switching to uninitialized state", this);
             this.exception = null;
             this.value = null;
             switchToState(WorkerState.UNALLOCATED);
         }
 
-        private synchronized void sleepWhileConsumed() {
-            logger.log(Level.FINE, "[Worker {0}]: waiting for ready (IDLE or ERROR) state", this);
-            while (state != WorkerState.UNCONSUMED && state != WorkerState.UNCONSUMED_ALLOCATION_ERROR) {
+        /**
+         * Should be called with lock held
+         */
+        private boolean switchToAllocating() {
+            if (state != WorkerState.UNALLOCATED)
+                return false;
+            switchToState(WorkerState.ALLOCATING);
+            return true;
+        }
+
+        /**
+         * Starts allocation loop unless worker is already allocated.
+         * <p>
+         * Should be called without lock held, since executor may run allocation loop synchronously.
+         */
+        boolean startAllocation() {
+            boolean shouldStart;
+            lock.lock();
+            try {
+                shouldStart = switchToAllocating();
+            } finally {
+                lock.unlock();
+            }
+            if (shouldStart) {
                 try {
-                    wait();
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
+                    configuration.workerExecutor().execute(this);
+                } catch (RuntimeException ex) {
+                    lock.lock();
+                    try {
+                        logger.log(Level.FINE, "[Worker {0}]: unable to start allocation: switching to error state", this);
+                        exception = ex;
+                        switchToState(WorkerState.UNCONSUMED_ALLOCATION_ERROR);
+                    } finally {
+                        lock.unlock();
+                    }
                 }
             }
+            return shouldStart;
+        }
+
+        /**
+         * Should be called with lock held
+         */
+        private void sleepWhileUnready() {
+            logger.log(Level.FINE, "[Worker {0}]: waiting for ready (IDLE, UNALLOCATED or ERROR) state", this);
+            while (!isReady(state)) {
+                stateChanged.awaitUninterruptibly();
+            }
         }
 
-        private synchronized void waitMaximumUnconsumedTime() {
+        /**
+         * Should be called with lock held
+         */
+        private void sleepWhileConsumed() {
+            logger.log(Level.FINE, "[Worker {0}]: waiting for consumer to finish", this);
+            while (state == WorkerState.CONSUMED || state == WorkerState.VALIDATING) {
+                stateChanged.awaitUninterruptibly();
+            }
+        }
+
+        /**
+         * Waits while resource is idle, validating it every validationIntervalMillis.
+         * <p>
+         * Should be called with lock held
+         *
+         * @return reason to evict resource or null if resource was borrowed
+         */
+        private Eviction waitWhileIdle() {
             logger.log(Level.FINE, "[Worker {0}]: sleeping while idle until maxIdleTimeMillis", this);
-            long startTime = System.currentTimeMillis();
-            long endTime = startTime + maxIdleTimeMillis;
-            long now = System.currentTimeMillis();
-            while (state == WorkerState.UNCONSUMED && now < endTime) {
-                logger.log(Level.FINE, "[Worker {0}]: sleeping for {1} ms", new Object[]{this, endTime - now});
+            long idleStart = System.nanoTime();
+            long maxIdleNanos = TimeUnit.MILLISECONDS.toNanos(configuration.maxIdleTimeMillis());
+            long maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(configuration.maxLifetimeMillis());
+            long validationIntervalNanos = TimeUnit.MILLISECONDS.toNanos(configuration.validationIntervalMillis());
+            long validated = idleStart;
+            for (;;) {
+                if (state == WorkerState.INVALID)
+                    return Eviction.INVALID;
+                if (state != WorkerState.UNCONSUMED)
+                    return null;
+                long now = System.nanoTime();
+                long remainingNanos = maxIdleNanos - (now - idleStart);
+                if (remainingNanos <= 0) {
+                    if (uncountIdleUnlessMinIdle())
+                        return Eviction.IDLE;
+                    // Resource is kept to satisfy minIdle: start new idle period,
+                    // zero maxIdleTimeMillis means that kept resource waits until it's borrowed
+                    idleStart = now;
+                    remainingNanos = maxIdleNanos > 0 ? maxIdleNanos : Long.MAX_VALUE;
+                }
+                if (maxLifetimeNanos > 0) {
+                    long remainingLifetimeNanos = maxLifetimeNanos - (now - allocatedNanos);
+                    if (remainingLifetimeNanos <= 0)
+                        return Eviction.EXPIRED;
+                    remainingNanos = Math.min(remainingNanos, remainingLifetimeNanos);
+                }
+                if (validationIntervalNanos > 0) {
+                    long untilValidationNanos = validationIntervalNanos - (now - validated);
+                    if (untilValidationNanos <= 0) {
+                        validateInBackground();
+                        validated = System.nanoTime();
+                        continue;
+                    }
+                    remainingNanos = Math.min(remainingNanos, untilValidationNanos);
+                }
+                if (logger.isLoggable(Level.FINE))
+                    logger.log(Level.FINE, "[Worker {0}]: sleeping for {1} ns", new Object[]{this, remainingNanos});
                 try {
-                    wait(endTime - now);
+                    if (remainingNanos == Long.MAX_VALUE)
+                        stateChanged.await();
+                    else
+                        stateChanged.awaitNanos(remainingNanos);
                 } catch (InterruptedException ex) {
                     Thread.currentThread().interrupt();
                 }
-                now = System.currentTimeMillis();
             }
         }
 
-        synchronized boolean isAllocated() {
-            return state != WorkerState.UNALLOCATED;
+        /**
+         * Stops counting this worker as idle unless it would leave less than minIdle idle resources.
+         * <p>
+         * Should be called with lock held
+         *
+         * @return true if idle resource can be evicted
+         */
+        private boolean uncountIdleUnlessMinIdle() {
+            for (;;) {
+                int count = idleCount.get();
+                if (count <= configuration.minIdle())
+                    return false;
+                if (idleCount.compareAndSet(count, count - 1)) {
+                    countedAsIdle = false;
+                    return true;
+                }
+            }
         }
 
-        void provideResourceTo(Consumer<? super T> consumer) {
-            logger.log(Level.FINE, "[Worker {0}]: consumer found: trying to provide resources", this);
+        /**
+         * Validates idle resource without holding the lock.
+         * <p>
+         * Borrowers wait for validation to finish.
+         * Should be called with lock held
+         */
+        private void validateInBackground() {
+            switchToState(WorkerState.VALIDATING);
+            T validated = value;
+            boolean isValid;
+            lock.unlock();
+            try {
+                isValid = isValid(validated);
+            } finally {
+                lock.lock();
+            }
+            switchToState(isValid ? WorkerState.UNCONSUMED : WorkerState.INVALID);
+        }
+
+        /**
+         * Should be called without lock held
+         */
+        private boolean isValid(T value) {
+            try {
+                return validator.test(value);
+            } catch (RuntimeException ex) {
+                if (logger.isLoggable(Level.FINE))
+                    logger.log(Level.FINE, MessageFormat.format("[Worker {0}]: validator failed: treating resource as invalid", this), ex);
+                return false;
+            }
+        }
+
+        /**
+         * Validates resource marked as VALIDATING by borrower and marks it as CONSUMED when resource is valid.
+         * <p>
+         * Invalid resource is left for the allocation loop to evict.
+         * Should be called without lock held
+         *
+         * @return true if resource is valid and should be consumed
+         */
+        private boolean validateBorrowed(T borrowed) {
+            boolean isValid = isValid(borrowed);
+            lock.lock();
+            try {
+                if (!isValid)
+                    logger.log(Level.FINE, "[Worker {0}]: borrowed resource is invalid: reallocating", this);
+                switchToState(isValid ? WorkerState.CONSUMED : WorkerState.INVALID);
+                return isValid;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Asynchronous counterpart of {@link Worker#provideResourceTo(Consumer)}.
+         * <p>
+         * Returned future is completed after worker is made available for future requests.
+         */
+        <R> CompletableFuture<R> provideResourceAsync(Function<? super T, ? extends CompletionStage<R>> function) {
+            logger.log(Level.FINE, "[Worker {0}]: asynchronous consumer found: trying to provide resources", this);
+            return provideResourceAsync(function, false);
+        }
+
+        private <R> CompletableFuture<R> provideResourceAsync(Function<? super T, ? extends CompletionStage<R>> function,
+                                                              boolean isFresh) {
             T initializedValue;
-            synchronized(this) {
-                sleepWhileConsumed();
-                if (state == WorkerState.UNCONSUMED_ALLOCATION_ERROR) {
-                    logger.log(Level.FINE, "[Worker {0}]: error was found: throwing exception to client", this);
-                    RuntimeException exception = this.exception;
-                    switchToUnallocated();
-                    throw exception;
+            for (;;) {
+                boolean shouldValidate;
+                isFresh = startAllocation() || isFresh;
+                lock.lock();
+                try {
+                    if (state == WorkerState.UNALLOCATED) {
+                        logger.log(Level.FINE, "[Worker {0}]: resource expired before it was consumed: reallocating", this);
+                        continue;
+                    }
+                    if (!isReady(state)) {
+                        logger.log(Level.FINE, "[Worker {0}]: waiting for allocation asynchronously", this);
+                        boolean isAllocating = state == WorkerState.ALLOCATING;
+                        CompletableFuture<Void> listener = new CompletableFuture<>();
+                        readinessListener = listener;
+                        return listener.thenComposeAsync((Void ready) -> provideResourceAsync(function, isAllocating));
+                    }
+                    if (state == WorkerState.UNCONSUMED_ALLOCATION_ERROR) {
+                        logger.log(Level.FINE, "[Worker {0}]: error was found: passing exception to client", this);
+                        CompletableFuture<R> result = new CompletableFuture<>();
+                        result.completeExceptionally(this.exception);
+                        switchToUnallocated();
+                        return result;
+                    }
+                    initializedValue = value;
+                    shouldValidate = configuration.validationOnBorrow() && !isFresh;
+                    switchToState(shouldValidate ? WorkerState.VALIDATING : WorkerState.CONSUMED);
+                } finally {
+                    lock.unlock();
                 }
-                initializedValue = value;
-                switchToState(WorkerState.CONSUMED);
+                if (!shouldValidate || validateBorrowed(initializedValue))
+                    break;
             }
+            CompletableFuture<R> result = new CompletableFuture<>();
+            CompletionStage<R> stage;
+            try {
+                stage = function.apply(initializedValue);
+                if (stage == null)
+                    throw new NullPointerException("Function returned null instead of CompletionStage");
+            } catch (RuntimeException ex) {
+                release();
+                result.completeExceptionally(ex);
+                return result;
+            }
+            stage.whenComplete((R value, Throwable exception) -> {
+                release();
+                if (exception != null)
+                    result.completeExceptionally(exception);
+                else
+                    result.complete(value);
+            });
+            return result;
+        }
+
+        private void release() {
+            logger.log(Level.FINE, "[Worker {0}]: consumer finished: making thyself available for future requests", this);
+            lock.lock();
+            try {
+                switchToState(WorkerState.UNCONSUMED);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean isAllocated() {
+            lock.lock();
+            try {
+                return state != WorkerState.UNALLOCATED;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void provideResourceTo(Consumer<? super T> consumer) {
+            logger.log(Level.FINE, "[Worker {0}]: consumer found: trying to provide resources", this);
+            T initializedValue = acquire();
             try {
                 consumer.accept(initializedValue);
             } finally {
-                logger.log(Level.FINE, "[Worker {0}]: consumer finished: making thyself available for future requests", this);
-                synchronized(this) {
-                    switchToState(WorkerState.UNCONSUMED);
+                release();
+            }
+        }
+
+        /**
+         * Waits for resource allocation and marks resource as consumed.
+         * <p>
+         * {@link Worker#release()} should be called after resource is consumed.
+         *
+         * @throws RuntimeException when resource allocation failed
+         */
+        T acquire() {
+            boolean isFresh = false;
+            for (;;) {
+                T initializedValue;
+                boolean shouldValidate;
+                isFresh = startAllocation() || isFresh;
+                lock.lock();
+                try {
+                    if (state == WorkerState.ALLOCATING)
+                        isFresh = true;
+                    sleepWhileUnready();
+                    if (state == WorkerState.UNALLOCATED) {
+                        logger.log(Level.FINE, "[Worker {0}]: resource expired before it was consumed: reallocating", this);
+                        continue;
+                    }
+                    if (state == WorkerState.UNCONSUMED_ALLOCATION_ERROR) {
+                        logger.log(Level.FINE, "[Worker {0}]: error was found: throwing exception to client", this);
+                        RuntimeException exception = this.exception;
+                        switchToUnallocated();
+                        throw exception;
+                    }
+                    initializedValue = value;
+                    shouldValidate = configuration.validationOnBorrow() && !isFresh;
+                    switchToState(shouldValidate ? WorkerState.VALIDATING : WorkerState.CONSUMED);
+                } finally {
+                    lock.unlock();
                 }
+                if (!shouldValidate || validateBorrowed(initializedValue))
+                    return initializedValue;
             }
         }
     }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private static final AtomicInteger poolCount = new AtomicInteger(0);
+        private final int poolNumber = poolCount.incrementAndGet();
+        private final AtomicInteger threadCount = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "pooled-resource-" + poolNumber + "-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -26,6 +26,12 @@
  */
 package com.github.sviperll;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -33,17 +39,62 @@ import java.util.function.Function;
  *
  * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
  */
-public class ResourceProvider<T> implements ResourceProviderDefinition<T> {
+public class ResourceProvider<T>
+        implements BoundedResourceProviderDefinition<T>, AsynchronousResourceProviderDefinition<T> {
     public static <T> ResourceProvider<T> forExisting(final T resource) {
-        return ResourceProvider.of((Consumer<? super T> consumer) -> {
-            consumer.accept(resource);
+        return ResourceProvider.of(new Definition<T>() {
+            @Override
+            public void provideResourceTo(Consumer<? super T> consumer) {
+                consumer.accept(resource);
+            }
+
+            @Override
+            public boolean tryProvideResourceTo(Consumer<? super T> consumer, long timeout, TimeUnit unit) {
+                consumer.accept(resource);
+                return true;
+            }
+
+            @Override
+            public <R> CompletionStage<R> provideResourceAsync(Function<? super T, ? extends CompletionStage<R>> function) {
+                try {
+                    CompletionStage<R> stage = function.apply(resource);
+                    if (stage == null)
+                        throw new NullPointerException("Function returned null instead of CompletionStage");
+                    return stage;
+                } catch (RuntimeException ex) {
+                    CompletableFuture<R> result = new CompletableFuture<>();
+                    result.completeExceptionally(ex);
+                    return result;
+                }
+            }
         });
     }
     public static <T> ResourceProvider<T> flatten(final ResourceProviderDefinition<? extends ResourceProviderDefinition<? extends T>> provider) {
-        return ResourceProvider.of((Consumer<? super T> consumer) -> {
-            provider.provideResourceTo((ResourceProviderDefinition<? extends T> innerProvider) -> {
-                innerProvider.provideResourceTo(consumer);
-            });
+        return ResourceProvider.of(new Definition<T>() {
+            @Override
+            public void provideResourceTo(Consumer<? super T> consumer) {
+                provider.provideResourceTo((ResourceProviderDefinition<? extends T> innerProvider) -> {
+                    innerProvider.provideResourceTo(consumer);
+                });
+            }
+
+            @Override
+            public boolean tryProvideResourceTo(Consumer<? super T> consumer, long timeout, TimeUnit unit) {
+                long deadline = System.nanoTime() + unit.toNanos(timeout);
+                Property<Boolean> isInnerProvided = new Property<>(false);
+                boolean isOuterProvided = tryProvide(provider, (ResourceProviderDefinition<? extends T> innerProvider) -> {
+                    long remainingNanos = Math.max(0, deadline - System.nanoTime());
+                    isInnerProvided.set(tryProvide(innerProvider, consumer, remainingNanos, TimeUnit.NANOSECONDS));
+                }, timeout, unit);
+                return isOuterProvided && isInnerProvided.get();
+            }
+
+            @Override
+            public <R> CompletionStage<R> provideResourceAsync(Function<? super T, ? extends CompletionStage<R>> function) {
+                return provideAsync(provider, (ResourceProviderDefinition<? extends T> innerProvider) -> {
+                    return provideAsync(innerProvider, function);
+                });
+            }
         });
     }
 
@@ -54,6 +105,77 @@ public class ResourceProvider<T> implements ResourceProviderDefinition<T> {
             return new ResourceProvider<>(source);
     }
 
+    private static <T> boolean tryProvide(ResourceProviderDefinition<? extends T> source, Consumer<? super T> consumer, long timeout, TimeUnit unit) {
+        if (source instanceof BoundedResourceProviderDefinition)
+            return ((BoundedResourceProviderDefinition<? extends T>)source).tryProvideResourceTo(consumer, timeout, unit);
+        else {
+            source.provideResourceTo(consumer);
+            return true;
+        }
+    }
+
+    private static <T> boolean tryProvideBatch(ResourceProviderDefinition<? extends T> source, int count, Consumer<? super List<T>> consumer, long timeout, TimeUnit unit) {
+        if (source instanceof BoundedResourceProviderDefinition)
+            return tryProvideBoundedBatch((BoundedResourceProviderDefinition<? extends T>)source, count, consumer, timeout, unit);
+        else
+            return tryProvideEach(source, count, consumer, timeout, unit);
+    }
+
+    private static <T, U extends T> boolean tryProvideBoundedBatch(BoundedResourceProviderDefinition<U> source, int count, Consumer<? super List<T>> consumer, long timeout, TimeUnit unit) {
+        return source.tryProvideResourcesTo(count, (List<U> values) -> {
+            consumer.accept(Collections.unmodifiableList(values));
+        }, timeout, unit);
+    }
+
+    static <T> boolean tryProvideEach(ResourceProviderDefinition<? extends T> source, int count, Consumer<? super List<T>> consumer, long timeout, TimeUnit unit) {
+        if (count < 0)
+            throw new IllegalArgumentException("count should not be negative: " + count);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        return tryProvideRemaining(source, new ArrayList<>(count), count, consumer, deadline);
+    }
+
+    private static <T> boolean tryProvideRemaining(ResourceProviderDefinition<? extends T> source, List<T> acquired, int count, Consumer<? super List<T>> consumer, long deadline) {
+        if (acquired.size() == count) {
+            consumer.accept(Collections.unmodifiableList(new ArrayList<>(acquired)));
+            return true;
+        }
+        Property<Boolean> isRemainingProvided = new Property<>(false);
+        long remainingNanos = Math.max(0, deadline - System.nanoTime());
+        boolean isProvided = tryProvide(source, (T value) -> {
+            acquired.add(value);
+            try {
+                isRemainingProvided.set(tryProvideRemaining(source, acquired, count, consumer, deadline));
+            } finally {
+                acquired.remove(acquired.size() - 1);
+            }
+        }, remainingNanos, TimeUnit.NANOSECONDS);
+        return isProvided && isRemainingProvided.get();
+    }
+
+    private static <T, R> CompletionStage<R> provideAsync(ResourceProviderDefinition<? extends T> source, Function<? super T, ? extends CompletionStage<R>> function) {
+        if (source instanceof AsynchronousResourceProviderDefinition)
+            return ((AsynchronousResourceProviderDefinition<? extends T>)source).provideResourceAsync(function);
+        else {
+            CompletableFuture<R> result = new CompletableFuture<>();
+            try {
+                source.provideResourceTo((T value) -> {
+                    function.apply(value).whenComplete((R stageResult, Throwable exception) -> {
+                        if (exception != null)
+                            result.completeExceptionally(exception);
+                        else
+                            result.complete(stageResult);
+                    });
+                    // Blocking provider releases resource as soon as consumer returns,
+                    // so we have no choice but to wait for stage completion
+                    result.handle((R stageResult, Throwable exception) -> null).join();
+                });
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+            }
+            return result;
+        }
+    }
+
     private final ResourceProviderDefinition<T> source;
     private ResourceProvider(ResourceProviderDefinition<T> source) {
         this.source = source;
@@ -64,14 +186,103 @@ public class ResourceProvider<T> implements ResourceProviderDefinition<T> {
         source.provideResourceTo(consumer);
     }
 
+    /**
+     * Provides resource to consumer unless no resource become available in given time.
+     * <p>
+     * Providers that are not {@link BoundedResourceProviderDefinition} are never exhausted and
+     * always provide resource.
+     *
+     * @return true if consumer was called and false if provider was exhausted
+     */
+    @Override
+    public boolean tryProvideResourceTo(Consumer<? super T> consumer, long timeout, TimeUnit unit) {
+        return tryProvide(source, consumer, timeout, unit);
+    }
+
+    /**
+     * Provides resource to consumer unless resource is not immediately available.
+     *
+     * @return true if consumer was called and false if provider was exhausted
+     * @see ResourceProvider#tryProvideResourceTo(Consumer, long, TimeUnit)
+     */
+    public boolean tryProvideResourceTo(Consumer<? super T> consumer) {
+        return tryProvide(source, consumer, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Provides count resources to consumer at once.
+     * <p>
+     * Pooled resources are acquired atomically,
+     * see {@link PooledResourceProvider#tryProvideResourcesTo(int, Consumer, long, TimeUnit)}.
+     */
+    public void provideResourcesTo(int count, Consumer<? super List<T>> consumer) {
+        tryProvideBatch(source, count, consumer, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Provides count resources to consumer at once unless they are not available in given time.
+     *
+     * @return true if consumer was called and false if provider was exhausted
+     * @see ResourceProvider#provideResourcesTo(int, Consumer)
+     */
+    @Override
+    public boolean tryProvideResourcesTo(int count, Consumer<? super List<T>> consumer, long timeout, TimeUnit unit) {
+        return tryProvideBatch(source, count, consumer, timeout, unit);
+    }
+
+    /**
+     * Provides resource to given function and holds it until returned stage completes.
+     * <p>
+     * Only {@link AsynchronousResourceProviderDefinition} sources are able to wait for resource
+     * without blocking.
+     * Other providers are called synchronously and current thread is blocked
+     * until stage returned by function completes.
+     */
+    @Override
+    public <R> CompletionStage<R> provideResourceAsync(Function<? super T, ? extends CompletionStage<R>> function) {
+        return provideAsync(source, function);
+    }
+
     public <U> ResourceProvider<U> map(Function<? super T, U> function) {
-        return ResourceProvider.of((Consumer<? super U> consumer) -> {
-            source.provideResourceTo((T value) -> {
-                consumer.accept(function.apply(value));
-            });
+        return ResourceProvider.of(new Definition<U>() {
+            @Override
+            public void provideResourceTo(Consumer<? super U> consumer) {
+                source.provideResourceTo((T value) -> {
+                    consumer.accept(function.apply(value));
+                });
+            }
+
+            @Override
+            public boolean tryProvideResourceTo(Consumer<? super U> consumer, long timeout, TimeUnit unit) {
+                return tryProvide(source, (T value) -> {
+                    consumer.accept(function.apply(value));
+                }, timeout, unit);
+            }
+
+            @Override
+            public boolean tryProvideResourcesTo(int count, Consumer<? super List<U>> consumer, long timeout, TimeUnit unit) {
+                return tryProvideBatch(source, count, (List<T> values) -> {
+                    List<U> mapped = new ArrayList<>(values.size());
+                    for (T value: values) {
+                        mapped.add(function.apply(value));
+                    }
+                    consumer.accept(Collections.unmodifiableList(mapped));
+                }, timeout, unit);
+            }
+
+            @Override
+            public <R> CompletionStage<R> provideResourceAsync(Function<? super U, ? extends CompletionStage<R>> asyncFunction) {
+                return provideAsync(source, (T value) -> {
+                    return asyncFunction.apply(function.apply(value));
+                });
+            }
         });
     }
     public <U> ResourceProvider<U> flatMap(Function<? super T, ? extends ResourceProviderDefinition<? extends U>> function) {
         return flatten(map(function));
     }
+
+    private interface Definition<T>
+            extends BoundedResourceProviderDefinition<T>, AsynchronousResourceProviderDefinition<T> {
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded collection of pool workers shared between borrowers.
+ * <p>
+ * Queues are free to ignore borrower's priority.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ * @param <W> type of worker
+ */
+interface WorkerQueue<W> {
+    /**
+     * Removes some worker from the queue waiting for one to become available.
+     */
+    W take(BorrowPriority priority);
+
+    /**
+     * Removes some worker from the queue waiting at most given time for one to become available.
+     *
+     * @return worker or null if no worker become available in given time
+     */
+    W poll(BorrowPriority priority, long timeout, TimeUnit unit);
+
+    /**
+     * Removes some worker from the queue without blocking current thread.
+     * <p>
+     * Returned future may be completed by the thread that returns some worker to the queue,
+     * so only cheap actions should be attached to it synchronously.
+     */
+    CompletableFuture<W> takeAsync(BorrowPriority priority);
+
+    /**
+     * Returns worker to the queue possibly handing it over to some waiting borrower.
+     */
+    void put(W worker);
+}
@@ -0,0 +1,718 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import com.github.sviperll.stream.SaturableConsuming;
+import com.github.sviperll.stream.Stream;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import javax.annotation.Nullable;
+
+/**
+ * Sorted map backed by AVL tree.
+ * <p>
+ * {@link AvlTreeMap#copy()} takes constant time: copy shares tree nodes with original map.
+ * Nodes are owned by the map that created them and are modified in place by their owner.
+ * When map is copied both maps lose ownership of all existing nodes, so the first write to
+ * any part of the tree after copy copies only nodes on the path from root to changed entry,
+ * that is O(log n) nodes.
+ * <p>
+ * Iterators iterate over the state of the map at the moment iterator was created
+ * and never throw ConcurrentModificationException.
+ * Like {@link java.util.TreeMap}, submap views are backed by the map and
+ * their size is computed by iteration.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class AvlTreeMap<K, V> extends AbstractMap<K, V> implements SortedMap<K, V> {
+    /**
+     * Map with natural ordering of keys.
+     */
+    public static <K extends Comparable<? super K>, V> AvlTreeMap<K, V> createInstance() {
+        return new AvlTreeMap<>(null, null, 0);
+    }
+
+    public static <K, V> AvlTreeMap<K, V> createInstance(Comparator<? super K> comparator) {
+        return new AvlTreeMap<>(Objects.requireNonNull(comparator), null, 0);
+    }
+
+    /**
+     * Copy of given map with natural ordering of keys.
+     * <p>
+     * Takes constant time when given map is AvlTreeMap with natural ordering.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<? super K>, V> AvlTreeMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof AvlTreeMap && ((AvlTreeMap<K, V>)map).comparator == null)
+            return ((AvlTreeMap<K, V>)map).copy();
+        else {
+            AvlTreeMap<K, V> result = createInstance();
+            result.putAll(map);
+            return result;
+        }
+    }
+
+    /**
+     * Changes that turn the first map into the second one in key order.
+     * <p>
+     * Changes are computed between the states of the maps at the moment of this call.
+     * Subtrees that are shared by the maps are skipped, so when one map is a recent copy
+     * of the other, changes are computed in time proportional to number of changes
+     * times height of the tree rather than to the size of the maps.
+     *
+     * @throws IllegalArgumentException if maps are ordered differently
+     */
+    public static <K, V> Stream<MapChange<K, V>> changes(AvlTreeMap<K, ? extends V> from, AvlTreeMap<K, ? extends V> to) {
+        if (!Objects.equals(from.comparator, to.comparator))
+            throw new IllegalArgumentException("Maps should have the same ordering");
+        AvlTreeMap<K, ? extends V> fromCopy = from.copy();
+        AvlTreeMap<K, ? extends V> toCopy = to.copy();
+        return Stream.of((SaturableConsuming<? super MapChange<K, V>> consumer) -> {
+            fromCopy.forEachChange(fromCopy.root, toCopy.root, consumer);
+        });
+    }
+
+    private static int height(@Nullable Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private final Comparator<? super K> comparator;
+    private Object edit = new Object();
+    private Node<K, V> root;
+    private int size;
+    private Set<Map.Entry<K, V>> entrySet = null;
+
+    private AvlTreeMap(Comparator<? super K> comparator, Node<K, V> root, int size) {
+        this.comparator = comparator;
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Copy of this map that shares structure with this map.
+     */
+    public AvlTreeMap<K, V> copy() {
+        edit = new Object();
+        return new AvlTreeMap<>(comparator, root, size);
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return findNode(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = findNode(key);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (root == null)
+            compare(key, key);
+        Change<V> change = new Change<>();
+        root = put(root, key, value, change);
+        if (change.sizeChanged)
+            size++;
+        return change.oldValue;
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (root == null)
+            return null;
+        Change<V> change = new Change<>();
+        root = remove(root, key, change);
+        if (change.sizeChanged)
+            size--;
+        return change.oldValue;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    @Override
+    public K firstKey() {
+        return key(ceilingNode(null, false));
+    }
+
+    @Override
+    public K lastKey() {
+        return key(lowerNode(null, false));
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        if (compare(fromKey, toKey) > 0)
+            throw new IllegalArgumentException("fromKey > toKey");
+        return new SubMap(fromKey, true, toKey, true);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        compare(toKey, toKey);
+        return new SubMap(null, false, toKey, true);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        compare(fromKey, fromKey);
+        return new SubMap(fromKey, true, null, false);
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null)
+            entrySet = new EntrySet(null, false, null, false);
+        return entrySet;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Object key1, Object key2) {
+        return comparator == null ? ((Comparable<Object>)key1).compareTo(key2) : comparator.compare((K)key1, (K)key2);
+    }
+
+    private K key(@Nullable Node<K, V> node) {
+        if (node == null)
+            throw new NoSuchElementException();
+        return node.key;
+    }
+
+    private Node<K, V> findNode(Object key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int comparison = compare(key, node.key);
+            if (comparison == 0)
+                return node;
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Node with the least key that is greater than or equal to given key.
+     */
+    private Node<K, V> ceilingNode(@Nullable K key, boolean isBounded) {
+        Node<K, V> result = null;
+        Node<K, V> node = root;
+        while (node != null) {
+            if (isBounded && compare(node.key, key) < 0)
+                node = node.right;
+            else {
+                result = node;
+                node = node.left;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Node with the greatest key that is less than given key.
+     */
+    private Node<K, V> lowerNode(@Nullable K key, boolean isBounded) {
+        Node<K, V> result = null;
+        Node<K, V> node = root;
+        while (node != null) {
+            if (isBounded && compare(node.key, key) >= 0)
+                node = node.left;
+            else {
+                result = node;
+                node = node.right;
+            }
+        }
+        return result;
+    }
+
+    private Node<K, V> editable(Node<K, V> node) {
+        return node.edit == edit ? node : new Node<>(edit, node.key, node.value, node.left, node.right, node.height);
+    }
+
+    private Node<K, V> put(@Nullable Node<K, V> node, K key, V value, Change<V> change) {
+        if (node == null) {
+            change.sizeChanged = true;
+            return new Node<>(edit, key, value, null, null, 1);
+        }
+        int comparison = compare(key, node.key);
+        if (comparison == 0) {
+            change.oldValue = node.value;
+            if (node.value == value)
+                return node;
+            Node<K, V> result = editable(node);
+            result.value = value;
+            return result;
+        } else if (comparison < 0) {
+            Node<K, V> child = put(node.left, key, value, change);
+            if (child == node.left && !change.sizeChanged)
+                return node;
+            Node<K, V> result = editable(node);
+            result.left = child;
+            return balance(result);
+        } else {
+            Node<K, V> child = put(node.right, key, value, change);
+            if (child == node.right && !change.sizeChanged)
+                return node;
+            Node<K, V> result = editable(node);
+            result.right = child;
+            return balance(result);
+        }
+    }
+
+    private Node<K, V> remove(@Nullable Node<K, V> node, Object key, Change<V> change) {
+        if (node == null)
+            return null;
+        int comparison = compare(key, node.key);
+        if (comparison < 0) {
+            Node<K, V> child = remove(node.left, key, change);
+            if (child == node.left && !change.sizeChanged)
+                return node;
+            Node<K, V> result = editable(node);
+            result.left = child;
+            return balance(result);
+        } else if (comparison > 0) {
+            Node<K, V> child = remove(node.right, key, change);
+            if (child == node.right && !change.sizeChanged)
+                return node;
+            Node<K, V> result = editable(node);
+            result.right = child;
+            return balance(result);
+        } else {
+            change.sizeChanged = true;
+            change.oldValue = node.value;
+            if (node.left == null)
+                return node.right;
+            else if (node.right == null)
+                return node.left;
+            else {
+                Node<K, V> successor = node.right;
+                while (successor.left != null)
+                    successor = successor.left;
+                Node<K, V> result = editable(node);
+                result.right = removeFirst(node.right);
+                result.key = successor.key;
+                result.value = successor.value;
+                return balance(result);
+            }
+        }
+    }
+
+    private Node<K, V> removeFirst(Node<K, V> node) {
+        if (node.left == null)
+            return node.right;
+        Node<K, V> result = editable(node);
+        result.left = removeFirst(node.left);
+        return balance(result);
+    }
+
+    /**
+     * Restores balance of editable node whose subtrees' heights differ by at most two.
+     */
+    private Node<K, V> balance(Node<K, V> node) {
+        int leftHeight = height(node.left);
+        int rightHeight = height(node.right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(node.left.left) < height(node.left.right))
+                node.left = rotateLeft(editable(node.left));
+            return rotateRight(node);
+        } else if (rightHeight > leftHeight + 1) {
+            if (height(node.right.right) < height(node.right.left))
+                node.right = rotateRight(editable(node.right));
+            return rotateLeft(node);
+        } else {
+            node.height = Math.max(leftHeight, rightHeight) + 1;
+            return node;
+        }
+    }
+
+    private Node<K, V> rotateRight(Node<K, V> node) {
+        Node<K, V> left = editable(node.left);
+        node.left = left.right;
+        node.updateHeight();
+        left.right = node;
+        left.updateHeight();
+        return left;
+    }
+
+    private Node<K, V> rotateLeft(Node<K, V> node) {
+        Node<K, V> right = editable(node.right);
+        node.right = right.left;
+        node.updateHeight();
+        right.left = node;
+        right.updateHeight();
+        return right;
+    }
+
+    /**
+     * Walks both trees in order and skips subtrees that are identical in both trees.
+     * <p>
+     * Identical nodes are never modified since both maps have lost their ownership.
+     */
+    private <W> void forEachChange(@Nullable Node<K, ?> from, @Nullable Node<K, ?> to,
+                                   SaturableConsuming<? super MapChange<K, W>> consumer) {
+        Cursor<K> fromCursor = new Cursor<>(from);
+        Cursor<K> toCursor = new Cursor<>(to);
+        while (!(fromCursor.isDone() && toCursor.isDone())) {
+            Node<K, ?> fromNode = fromCursor.node();
+            Node<K, ?> toNode = toCursor.node();
+            if (fromCursor.isSubtree() && toCursor.isSubtree() && fromNode == toNode) {
+                fromCursor.skip();
+                toCursor.skip();
+            } else if (fromCursor.isSubtree() && (!toCursor.isSubtree() || fromNode.height >= toNode.height)) {
+                fromCursor.expand();
+            } else if (toCursor.isSubtree()) {
+                toCursor.expand();
+            } else {
+                int comparison = fromCursor.isDone() ? 1 : toCursor.isDone() ? -1 : compare(fromNode.key, toNode.key);
+                if (comparison == 0 && Objects.equals(fromNode.value, toNode.value)) {
+                    fromCursor.skip();
+                    toCursor.skip();
+                    continue;
+                }
+                if (!consumer.needsMore())
+                    return;
+                if (comparison < 0) {
+                    consumer.accept(MapChange.<K, W>remove(fromNode.key));
+                    fromCursor.skip();
+                } else {
+                    @SuppressWarnings("unchecked")
+                    W value = (W)toNode.value;
+                    consumer.accept(MapChange.put(toNode.key, value));
+                    toCursor.skip();
+                    if (comparison == 0)
+                        fromCursor.skip();
+                }
+            }
+        }
+    }
+
+    /**
+     * In-order traversal that can skip whole subtrees.
+     * <p>
+     * Top of the stack is either a subtree that is not expanded yet or
+     * a single node whose left subtree is already traversed.
+     */
+    private static class Cursor<K> {
+        private final Deque<Node<K, ?>> nodes = new ArrayDeque<>();
+        private final Deque<Boolean> subtrees = new ArrayDeque<>();
+
+        Cursor(@Nullable Node<K, ?> root) {
+            if (root != null)
+                push(root, true);
+        }
+
+        boolean isDone() {
+            return nodes.isEmpty();
+        }
+
+        boolean isSubtree() {
+            return !subtrees.isEmpty() && subtrees.peek();
+        }
+
+        Node<K, ?> node() {
+            return nodes.peek();
+        }
+
+        void skip() {
+            nodes.pop();
+            subtrees.pop();
+        }
+
+        void expand() {
+            Node<K, ?> node = nodes.pop();
+            subtrees.pop();
+            if (node.right != null)
+                push(node.right, true);
+            push(node, false);
+            if (node.left != null)
+                push(node.left, true);
+        }
+
+        private void push(Node<K, ?> node, boolean isSubtree) {
+            nodes.push(node);
+            subtrees.push(isSubtree);
+        }
+    }
+
+    private static class Change<V> {
+        boolean sizeChanged = false;
+        V oldValue = null;
+    }
+
+    private static class Node<K, V> {
+        final Object edit;
+        K key;
+        V value;
+        Node<K, V> left;
+        Node<K, V> right;
+        int height;
+
+        Node(Object edit, K key, V value, Node<K, V> left, Node<K, V> right, int height) {
+            this.edit = edit;
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = height;
+        }
+
+        void updateHeight() {
+            height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    private class SubMap extends AbstractMap<K, V> implements SortedMap<K, V> {
+        private final K fromKey;
+        private final boolean hasFromKey;
+        private final K toKey;
+        private final boolean hasToKey;
+        private Set<Map.Entry<K, V>> entrySet = null;
+
+        SubMap(@Nullable K fromKey, boolean hasFromKey, @Nullable K toKey, boolean hasToKey) {
+            this.fromKey = fromKey;
+            this.hasFromKey = hasFromKey;
+            this.toKey = toKey;
+            this.hasToKey = hasToKey;
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return comparator;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return isInRange(key) && AvlTreeMap.this.containsKey(key);
+        }
+
+        @Override
+        public V get(Object key) {
+            return isInRange(key) ? AvlTreeMap.this.get(key) : null;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            if (!isInRange(key))
+                throw new IllegalArgumentException("key out of range");
+            return AvlTreeMap.this.put(key, value);
+        }
+
+        @Override
+        public V remove(Object key) {
+            return isInRange(key) ? AvlTreeMap.this.remove(key) : null;
+        }
+
+        @Override
+        public K firstKey() {
+            Node<K, V> node = ceilingNode(fromKey, hasFromKey);
+            return key(node == null || !isInRange(node.key) ? null : node);
+        }
+
+        @Override
+        public K lastKey() {
+            Node<K, V> node = lowerNode(toKey, hasToKey);
+            return key(node == null || !isInRange(node.key) ? null : node);
+        }
+
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            if (compare(fromKey, toKey) > 0)
+                throw new IllegalArgumentException("fromKey > toKey");
+            checkBound(fromKey);
+            checkBound(toKey);
+            return new SubMap(fromKey, true, toKey, true);
+        }
+
+        @Override
+        public SortedMap<K, V> headMap(K toKey) {
+            checkBound(toKey);
+            return new SubMap(fromKey, hasFromKey, toKey, true);
+        }
+
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey) {
+            checkBound(fromKey);
+            return new SubMap(fromKey, true, toKey, hasToKey);
+        }
+
+        @Override
+        public Set<Map.Entry<K, V>> entrySet() {
+            if (entrySet == null)
+                entrySet = new EntrySet(fromKey, hasFromKey, toKey, hasToKey);
+            return entrySet;
+        }
+
+        private boolean isInRange(Object key) {
+            return (!hasFromKey || compare(key, fromKey) >= 0) && (!hasToKey || compare(key, toKey) < 0);
+        }
+
+        private void checkBound(K key) {
+            if ((hasFromKey && compare(key, fromKey) < 0) || (hasToKey && compare(key, toKey) > 0))
+                throw new IllegalArgumentException("key out of range");
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        private final K fromKey;
+        private final boolean hasFromKey;
+        private final K toKey;
+        private final boolean hasToKey;
+
+        EntrySet(@Nullable K fromKey, boolean hasFromKey, @Nullable K toKey, boolean hasToKey) {
+            this.fromKey = fromKey;
+            this.hasFromKey = hasFromKey;
+            this.toKey = toKey;
+            this.hasToKey = hasToKey;
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator(fromKey, hasFromKey, toKey, hasToKey);
+        }
+
+        @Override
+        public int size() {
+            if (!hasFromKey && !hasToKey)
+                return size;
+            int count = 0;
+            for (Iterator<Map.Entry<K, V>> iterator = iterator(); iterator.hasNext(); iterator.next())
+                count++;
+            return count;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>)o;
+            Object key = entry.getKey();
+            if ((hasFromKey && compare(key, fromKey) < 0) || (hasToKey && compare(key, toKey) >= 0))
+                return false;
+            Node<K, V> node = findNode(key);
+            return node != null && Objects.equals(node.value, entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!contains(o))
+                return false;
+            AvlTreeMap.this.remove(((Map.Entry<?, ?>)o).getKey());
+            return true;
+        }
+    }
+
+    private class Entry extends AbstractMap.SimpleEntry<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        Entry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    /**
+     * In-order iterator over tree nodes.
+     * <p>
+     * Map loses ownership of its nodes when iterator is created, so that
+     * modifications of map never change nodes that are being iterated.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private final Deque<Node<K, V>> stack = new ArrayDeque<>();
+        private final K toKey;
+        private final boolean hasToKey;
+        private Entry last = null;
+
+        EntryIterator(@Nullable K fromKey, boolean hasFromKey, @Nullable K toKey, boolean hasToKey) {
+            this.toKey = toKey;
+            this.hasToKey = hasToKey;
+            edit = new Object();
+            Node<K, V> node = root;
+            while (node != null) {
+                if (hasFromKey && compare(node.key, fromKey) < 0)
+                    node = node.right;
+                else {
+                    stack.push(node);
+                    node = node.left;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            Node<K, V> node = stack.peek();
+            return node != null && (!hasToKey || compare(node.key, toKey) < 0);
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Node<K, V> node = stack.pop();
+            for (Node<K, V> child = node.right; child != null; child = child.left)
+                stack.push(child);
+            last = new Entry(node.key, node.value);
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null)
+                throw new IllegalStateException();
+            AvlTreeMap.this.remove(last.getKey());
+            last = null;
+        }
+    }
+}
@@ -27,91 +27,182 @@
 package com.github.sviperll.collection;
 
 import com.github.sviperll.ByteArray;
-import java.util.Collection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
-public class ByteArrayMap<V> implements Map<ByteArray, V> {
-    private final Map<ByteArray, V> map;
+/**
+ * Map with binary keys that accepts both {@link ByteArray} and plain byte arrays as keys.
+ * <p>
+ * {@link ByteArrayMap#createInstance()} creates map backed by open addressing hash table
+ * that stores all keys in single byte array and
+ * looks keys up by region of byte array without any allocation.
+ * {@link ByteArrayMap#createOffHeapInstance()} creates map of binary values that keeps entries in direct memory.
+ * {@link ByteArrayMap#ByteArrayMap(java.util.Map)} wraps arbitrary map instead.
+ * <p>
+ * Byte array keys are copied when new entry is added, so that
+ * key arrays can be reused by caller.
+ *
+ * @param <V> type of values
+ */
+public class ByteArrayMap<V> extends AbstractMap<ByteArray, V> {
+    private static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+    /**
+     * Creates empty map backed by open addressing hash table.
+     */
+    public static <V> ByteArrayMap<V> createInstance() {
+        return createInstance(0);
+    }
 
-    public ByteArrayMap(Map<ByteArray, V> map) {
-        this.map = map;
+    /**
+     * Creates empty map backed by open addressing hash table that
+     * can hold expectedSize entries without rehashing.
+     */
+    public static <V> ByteArrayMap<V> createInstance(int expectedSize) {
+        return new ByteArrayMap<>(new OpenAddressingByteArrayTable<V>(expectedSize));
     }
 
-    @Override
-    public Set<ByteArray> keySet() {
-        return map.keySet();
+    /**
+     * Creates empty map that keeps keys in unsigned lexicographic order.
+     *
+     * @see SortedByteArrayMap
+     */
+    public static <V> SortedByteArrayMap<V> createSortedInstance() {
+        return new SortedByteArrayMap<>();
     }
 
-    @Override
-    public Collection<V> values() {
-        return map.values();
+    /**
+     * Creates empty map that keeps keys and values in direct memory.
+     * <p>
+     * Both keys and values are serialized into direct buffers allocated in slabs of 1 MiB.
+     * Only index of primitive arrays is kept in heap, so heap footprint does not grow
+     * with size of keys and values and no objects are created per entry.
+     * Values are copied into heap each time they are read.
+     */
+    public static ByteArrayMap<ByteArray> createOffHeapInstance() {
+        return createOffHeapInstance(0, DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * Creates empty map that keeps keys and values in direct memory.
+     * <p>
+     * Map can hold expectedSize entries without rehashing its index.
+     * Entries larger than slabSize get slabs of their own.
+     *
+     * @see ByteArrayMap#createOffHeapInstance()
+     */
+    public static ByteArrayMap<ByteArray> createOffHeapInstance(int expectedSize, int slabSize) {
+        return new ByteArrayMap<>(new OffHeapByteArrayTable(expectedSize, slabSize));
+    }
+
+    private final ByteArrayTable<V> table;
+    private Set<Entry<ByteArray, V>> entrySet = null;
+
+    public ByteArrayMap(Map<ByteArray, V> map) {
+        this(new MapByteArrayTable<>(map));
+    }
+
+    ByteArrayMap(ByteArrayTable<V> table) {
+        this.table = table;
     }
 
     @Override
     public Set<Entry<ByteArray, V>> entrySet() {
-        return map.entrySet();
+        if (entrySet == null)
+            entrySet = new EntrySet();
+        return entrySet;
     }
 
     @Override
     public int size() {
-        return map.size();
+        return table.size();
     }
 
     @Override
     public boolean isEmpty() {
-        return map.isEmpty();
+        return table.size() == 0;
     }
 
     @Override
-    @SuppressWarnings("element-type-mismatch")
     public boolean containsKey(Object key) {
-        if (key instanceof byte[])
-            return map.containsKey(new ByteArray((byte[])key));
+        if (key instanceof byte[]) {
+            byte[] bytes = (byte[])key;
+            return table.containsKey(bytes, 0, bytes.length);
+        } else if (key instanceof ByteArray)
+            return table.containsKey((ByteArray)key);
         else
-            return map.containsKey(key);
+            return false;
     }
 
-    @Override
-    @SuppressWarnings("element-type-mismatch")
-    public boolean containsValue(Object value) {
-        return map.containsValue(value);
+    public boolean containsKey(byte[] key, int offset, int length) {
+        return table.containsKey(key, offset, length);
     }
 
     @Override
-    @SuppressWarnings("element-type-mismatch")
     public V get(Object key) {
-        if (key instanceof byte[])
-            return map.get(new ByteArray((byte[])key));
+        if (key instanceof byte[]) {
+            byte[] bytes = (byte[])key;
+            return table.get(bytes, 0, bytes.length);
+        } else if (key instanceof ByteArray)
+            return table.get((ByteArray)key);
         else
-            return map.get(key);
+            return null;
+    }
+
+    public V get(byte[] key, int offset, int length) {
+        return table.get(key, offset, length);
     }
 
     public V put(byte[] key, V value) {
-        return map.put(new ByteArray(key), value);
+        return table.put(key, 0, key.length, value);
+    }
+
+    public V put(byte[] key, int offset, int length, V value) {
+        return table.put(key, offset, length, value);
     }
 
     @Override
     public V put(ByteArray key, V value) {
-        return map.put(key, value);
+        return table.put(key, value);
     }
 
     @Override
-    @SuppressWarnings("element-type-mismatch")
     public V remove(Object key) {
-        if (key instanceof byte[])
-            return map.remove(new ByteArray((byte[])key));
+        if (key instanceof byte[]) {
+            byte[] bytes = (byte[])key;
+            return table.remove(bytes, 0, bytes.length);
+        } else if (key instanceof ByteArray)
+            return table.remove((ByteArray)key);
         else
-            return map.remove(key);
+            return null;
     }
 
-    @Override
-    public void putAll(Map<? extends ByteArray, ? extends V> m) {
-        map.putAll(m);
+    public V remove(byte[] key, int offset, int length) {
+        return table.remove(key, offset, length);
     }
 
     @Override
     public void clear() {
-        map.clear();
+        table.clear();
+    }
+
+    private class EntrySet extends AbstractSet<Entry<ByteArray, V>> {
+        @Override
+        public Iterator<Entry<ByteArray, V>> iterator() {
+            return table.iterator();
+        }
+
+        @Override
+        public int size() {
+            return table.size();
+        }
+
+        @Override
+        public void clear() {
+            table.clear();
+        }
     }
 }
@@ -31,14 +31,50 @@ package com.github.sviperll.collection;
  * ByteBufferPool class implements pool of ByteBuffer objects.
  * ByteBuffer is a thin wrapper around byte array.
  * Size of ByteBuffer is determined by pool.
+ * Backing array may be longer than buffer's size, only first {@link ByteBuffer#size()} bytes belong to buffer.
  * AllocatingByteBufferPool is very simple implementation of ByteBufferPool.
  * Each request for ByteBuffer from AllocatingByteBufferPool returns newly allocated one.
+ * PoolingByteBufferAllocator recycles buffers returned with free method.
+ * DirectByteBufferAllocator hands out direct NIO buffers that are not backed by arrays.
+ * LeakDetectingByteBufferAllocator accounts allocated buffers and reports buffers that were never freed.
  */
 public interface ByteBufferAllocator {
     ByteBuffer allocateByteBuffer();
 
     interface ByteBuffer {
+        /**
+         * Backing array of this buffer.
+         * <p>
+         * Array may be longer than {@link #size()}, bytes past size are not part of buffer.
+         *
+         * @throws UnsupportedOperationException if buffer is not backed by accessible array
+         */
         byte[] array();
+
         void free();
+
+        /**
+         * Number of usable bytes of this buffer, size requested from allocator.
+         */
+        default int size() {
+            return hasArray() ? array().length : nioBuffer().capacity();
+        }
+
+        /**
+         * Tells whether buffer is backed by accessible array.
+         */
+        default boolean hasArray() {
+            return true;
+        }
+
+        /**
+         * NIO view of this buffer.
+         * <p>
+         * Direct buffers are returned as is, so that they can be written to channels without copying.
+         * View should not be used after buffer is freed.
+         */
+        default java.nio.ByteBuffer nioBuffer() {
+            return java.nio.ByteBuffer.wrap(array());
+        }
     }
 }
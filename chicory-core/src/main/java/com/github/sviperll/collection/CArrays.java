@@ -32,11 +32,22 @@ package com.github.sviperll.collection;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import javax.annotation.ParametersAreNonnullByDefault;
 
 /**
+ * List views of primitive arrays.
+ * <p>
+ * Views of int, long and double arrays are {@link IntList}, {@link LongList} and {@link DoubleList}
+ * and provide unboxed access, bulk operations and primitive streams.
+ * asIntList, asLongList and asDoubleList methods return these views with their specific types.
+ * <p>
+ * Views returned by asSortedList methods use binary search in indexOf, lastIndexOf and contains, so
+ * array should be sorted in ascending order and should be kept sorted while view is used.
  *
  * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
  */
@@ -66,13 +77,197 @@ public class CArrays {
     public static List<Boolean> asList(boolean... values) {
         return new BooleanArrayAsList(values);
     }
+    public static IntList asIntList(int... values) {
+        return new IntArrayAsList(values);
+    }
+    public static LongList asLongList(long... values) {
+        return new LongArrayAsList(values);
+    }
+    public static DoubleList asDoubleList(double... values) {
+        return new DoubleArrayAsList(values);
+    }
+    public static List<Byte> asSortedList(byte... values) {
+        return new SortedByteArrayAsList(values);
+    }
+    public static List<Short> asSortedList(short... values) {
+        return new SortedShortArrayAsList(values);
+    }
+    public static IntList asSortedList(int... values) {
+        return new SortedIntArrayAsList(values);
+    }
+    public static LongList asSortedList(long... values) {
+        return new SortedLongArrayAsList(values);
+    }
+    public static List<Character> asSortedList(char... values) {
+        return new SortedCharArrayAsList(values);
+    }
     private CArrays() {
     }
 
+    /**
+     * Index of first element of sorted array that is not less than given value.
+     */
+    private static int lowerBound(byte[] values, byte value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Index of first element of sorted array that is greater than given value.
+     */
+    private static int upperBound(byte[] values, byte value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Index of first element of sorted array that is not less than given value.
+     */
+    private static int lowerBound(short[] values, short value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Index of first element of sorted array that is greater than given value.
+     */
+    private static int upperBound(short[] values, short value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Index of first element of sorted array that is not less than given value.
+     */
+    private static int lowerBound(int[] values, int value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Index of first element of sorted array that is greater than given value.
+     */
+    private static int upperBound(int[] values, int value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Index of first element of sorted array that is not less than given value.
+     */
+    private static int lowerBound(long[] values, long value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Index of first element of sorted array that is greater than given value.
+     */
+    private static int upperBound(long[] values, long value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Index of first element of sorted array that is not less than given value.
+     */
+    private static int lowerBound(char[] values, char value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Index of first element of sorted array that is greater than given value.
+     */
+    private static int upperBound(char[] values, char value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
     private static class ByteArrayAsList extends AbstractList<Byte>
             implements RandomAccess {
 
-        private final byte[] values;
+        final byte[] values;
         ByteArrayAsList(byte[] values) {
             this.values = values;
         }
@@ -129,7 +324,7 @@ public class CArrays {
     private static class ShortArrayAsList extends AbstractList<Short>
             implements RandomAccess {
 
-        private final short[] values;
+        final short[] values;
         ShortArrayAsList(short[] values) {
             this.values = values;
         }
@@ -184,9 +379,9 @@ public class CArrays {
     }
 
     private static class IntArrayAsList extends AbstractList<Integer>
-            implements RandomAccess {
+            implements IntList, RandomAccess {
 
-        private final int[] values;
+        final int[] values;
         IntArrayAsList(int[] values) {
             this.values = values;
         }
@@ -196,6 +391,11 @@ public class CArrays {
             return values[index];
         }
 
+        @Override
+        public int getInt(int index) {
+            return values[index];
+        }
+
         @Override
         public int size() {
             return values.length;
@@ -208,7 +408,12 @@ public class CArrays {
 
         @Override
         public Integer set(int index, Integer newValue) {
-            Integer oldValue = values[index];
+            return setInt(index, newValue);
+        }
+
+        @Override
+        public int setInt(int index, int newValue) {
+            int oldValue = values[index];
             values[index] = newValue;
             return oldValue;
         }
@@ -217,33 +422,67 @@ public class CArrays {
         public int indexOf(Object o) {
             if (o == null || !(o instanceof Integer))
                 return -1;
-            else {
-                int v = (Integer)o;
-                for (int i = 0; i < values.length; i++)
-                    if (v == values[i])
-                        return i;
-                return -1;
-            }
+            else
+                return indexOfInt((Integer)o);
         }
 
         @Override
         public int lastIndexOf(Object o) {
             if (o == null || !(o instanceof Integer))
                 return -1;
-            else {
-                int v = (Integer)o;
-                for (int i = values.length - 1; i >= 0; i--)
-                    if (v == values[i])
-                        return i;
-                return -1;
-            }
+            else
+                return lastIndexOfInt((Integer)o);
+        }
+
+        @Override
+        public int indexOfInt(int v) {
+            for (int i = 0; i < values.length; i++)
+                if (v == values[i])
+                    return i;
+            return -1;
+        }
+
+        @Override
+        public int lastIndexOfInt(int v) {
+            for (int i = values.length - 1; i >= 0; i--)
+                if (v == values[i])
+                    return i;
+            return -1;
+        }
+
+        @Override
+        public void copyInto(int[] destination, int offset) {
+            System.arraycopy(values, 0, destination, offset, values.length);
+        }
+
+        @Override
+        public int[] toIntArray() {
+            return values.clone();
+        }
+
+        @Override
+        public long sum() {
+            long sum = 0;
+            for (int value: values)
+                sum += value;
+            return sum;
+        }
+
+        @Override
+        public void sort() {
+            Arrays.sort(values);
+        }
+
+        @Override
+        public Spliterator.OfInt spliterator() {
+            return Spliterators.spliterator(values, Spliterator.ORDERED);
         }
     }
 
     private static class LongArrayAsList extends AbstractList<Long>
-            implements RandomAccess {
+            implements LongList, RandomAccess {
 
-        private final long[] values;
+        final long[] values;
         LongArrayAsList(long[] values) {
             this.values = values;
         }
@@ -253,6 +492,11 @@ public class CArrays {
             return values[index];
         }
 
+        @Override
+        public long getLong(int index) {
+            return values[index];
+        }
+
         @Override
         public int size() {
             return values.length;
@@ -265,7 +509,12 @@ public class CArrays {
 
         @Override
         public Long set(int index, Long newValue) {
-            Long oldValue = values[index];
+            return setLong(index, newValue);
+        }
+
+        @Override
+        public long setLong(int index, long newValue) {
+            long oldValue = values[index];
             values[index] = newValue;
             return oldValue;
         }
@@ -274,26 +523,60 @@ public class CArrays {
         public int indexOf(Object o) {
             if (o == null || !(o instanceof Long))
                 return -1;
-            else {
-                long v = (Long)o;
-                for (int i = 0; i < values.length; i++)
-                    if (v == values[i])
-                        return i;
-                return -1;
-            }
+            else
+                return indexOfLong((Long)o);
         }
 
         @Override
         public int lastIndexOf(Object o) {
             if (o == null || !(o instanceof Long))
                 return -1;
-            else {
-                long v = (Long)o;
-                for (int i = values.length - 1; i >= 0; i--)
-                    if (v == values[i])
-                        return i;
-                return -1;
-            }
+            else
+                return lastIndexOfLong((Long)o);
+        }
+
+        @Override
+        public int indexOfLong(long v) {
+            for (int i = 0; i < values.length; i++)
+                if (v == values[i])
+                    return i;
+            return -1;
+        }
+
+        @Override
+        public int lastIndexOfLong(long v) {
+            for (int i = values.length - 1; i >= 0; i--)
+                if (v == values[i])
+                    return i;
+            return -1;
+        }
+
+        @Override
+        public void copyInto(long[] destination, int offset) {
+            System.arraycopy(values, 0, destination, offset, values.length);
+        }
+
+        @Override
+        public long[] toLongArray() {
+            return values.clone();
+        }
+
+        @Override
+        public long sum() {
+            long sum = 0;
+            for (long value: values)
+                sum += value;
+            return sum;
+        }
+
+        @Override
+        public void sort() {
+            Arrays.sort(values);
+        }
+
+        @Override
+        public Spliterator.OfLong spliterator() {
+            return Spliterators.spliterator(values, Spliterator.ORDERED);
         }
     }
 
@@ -362,9 +645,9 @@ public class CArrays {
     }
 
     private static class DoubleArrayAsList extends AbstractList<Double>
-            implements RandomAccess {
+            implements DoubleList, RandomAccess {
 
-        private final double[] values;
+        final double[] values;
         DoubleArrayAsList(double[] values) {
             this.values = values;
         }
@@ -374,6 +657,11 @@ public class CArrays {
             return values[index];
         }
 
+        @Override
+        public double getDouble(int index) {
+            return values[index];
+        }
+
         @Override
         public int size() {
             return values.length;
@@ -386,48 +674,87 @@ public class CArrays {
 
         @Override
         public Double set(int index, Double newValue) {
-            Double oldValue = values[index];
+            return setDouble(index, newValue);
+        }
+
+        @Override
+        public double setDouble(int index, double newValue) {
+            double oldValue = values[index];
             values[index] = newValue;
             return oldValue;
         }
 
-        @SuppressFBWarnings(
-            value="FE_FLOATING_POINT_EQUALITY",
-            justification="Required by indexOf sematics")
         @Override
         public int indexOf(Object o) {
             if (o == null || !(o instanceof Double))
                 return -1;
-            else {
-                double v = (Double)o;
-                for (int i = 0; i < values.length; i++)
-                    if (v == values[i])
-                        return i;
+            else
+                return indexOfDouble((Double)o);
+        }
+
+        @Override
+        public int lastIndexOf(Object o) {
+            if (o == null || !(o instanceof Double))
                 return -1;
-            }
+            else
+                return lastIndexOfDouble((Double)o);
         }
 
         @SuppressFBWarnings(
             value="FE_FLOATING_POINT_EQUALITY",
             justification="Required by indexOf sematics")
         @Override
-        public int lastIndexOf(Object o) {
-            if (o == null || !(o instanceof Double))
-                return -1;
-            else {
-                double v = (Double)o;
-                for (int i = values.length - 1; i >= 0; i--)
-                    if (v == values[i])
-                        return i;
-                return -1;
-            }
+        public int indexOfDouble(double v) {
+            for (int i = 0; i < values.length; i++)
+                if (v == values[i])
+                    return i;
+            return -1;
+        }
+
+        @SuppressFBWarnings(
+            value="FE_FLOATING_POINT_EQUALITY",
+            justification="Required by indexOf sematics")
+        @Override
+        public int lastIndexOfDouble(double v) {
+            for (int i = values.length - 1; i >= 0; i--)
+                if (v == values[i])
+                    return i;
+            return -1;
+        }
+
+        @Override
+        public void copyInto(double[] destination, int offset) {
+            System.arraycopy(values, 0, destination, offset, values.length);
+        }
+
+        @Override
+        public double[] toDoubleArray() {
+            return values.clone();
+        }
+
+        @Override
+        public double sum() {
+            double sum = 0;
+            for (double value: values)
+                sum += value;
+            return sum;
+        }
+
+        @Override
+        public void sort() {
+            Arrays.sort(values);
+        }
+
+        @Override
+        public Spliterator.OfDouble spliterator() {
+            return Spliterators.spliterator(values, Spliterator.ORDERED);
         }
     }
 
     private static class CharArrayAsList extends AbstractList<Character>
             implements RandomAccess {
 
-        private final char[] values;
+        final char[] values;
         CharArrayAsList(char[] values) {
             this.values = values;
         }
@@ -537,4 +864,124 @@ public class CArrays {
             }
         }
     }
+
+    private static class SortedByteArrayAsList extends ByteArrayAsList {
+        SortedByteArrayAsList(byte[] values) {
+            super(values);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            if (o == null || !(o instanceof Byte))
+                return -1;
+            else {
+                byte v = (Byte)o;
+                int i = lowerBound(values, v);
+                return i < values.length && values[i] == v ? i : -1;
+            }
+        }
+
+        @Override
+        public int lastIndexOf(Object o) {
+            if (o == null || !(o instanceof Byte))
+                return -1;
+            else {
+                byte v = (Byte)o;
+                int i = upperBound(values, v) - 1;
+                return i >= 0 && values[i] == v ? i : -1;
+            }
+        }
+    }
+
+    private static class SortedShortArrayAsList extends ShortArrayAsList {
+        SortedShortArrayAsList(short[] values) {
+            super(values);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            if (o == null || !(o instanceof Short))
+                return -1;
+            else {
+                short v = (Short)o;
+                int i = lowerBound(values, v);
+                return i < values.length && values[i] == v ? i : -1;
+            }
+        }
+
+        @Override
+        public int lastIndexOf(Object o) {
+            if (o == null || !(o instanceof Short))
+                return -1;
+            else {
+                short v = (Short)o;
+                int i = upperBound(values, v) - 1;
+                return i >= 0 && values[i] == v ? i : -1;
+            }
+        }
+    }
+
+    private static class SortedIntArrayAsList extends IntArrayAsList {
+        SortedIntArrayAsList(int[] values) {
+            super(values);
+        }
+
+        @Override
+        public int indexOfInt(int v) {
+            int i = lowerBound(values, v);
+            return i < values.length && values[i] == v ? i : -1;
+        }
+
+        @Override
+        public int lastIndexOfInt(int v) {
+            int i = upperBound(values, v) - 1;
+            return i >= 0 && values[i] == v ? i : -1;
+        }
+    }
+
+    private static class SortedLongArrayAsList extends LongArrayAsList {
+        SortedLongArrayAsList(long[] values) {
+            super(values);
+        }
+
+        @Override
+        public int indexOfLong(long v) {
+            int i = lowerBound(values, v);
+            return i < values.length && values[i] == v ? i : -1;
+        }
+
+        @Override
+        public int lastIndexOfLong(long v) {
+            int i = upperBound(values, v) - 1;
+            return i >= 0 && values[i] == v ? i : -1;
+        }
+    }
+
+    private static class SortedCharArrayAsList extends CharArrayAsList {
+        SortedCharArrayAsList(char[] values) {
+            super(values);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            if (o == null || !(o instanceof Character))
+                return -1;
+            else {
+                char v = (Character)o;
+                int i = lowerBound(values, v);
+                return i < values.length && values[i] == v ? i : -1;
+            }
+        }
+
+        @Override
+        public int lastIndexOf(Object o) {
+            if (o == null || !(o instanceof Character))
+                return -1;
+            else {
+                char v = (Character)o;
+                int i = upperBound(values, v) - 1;
+                return i >= 0 && values[i] == v ? i : -1;
+            }
+        }
+    }
 }
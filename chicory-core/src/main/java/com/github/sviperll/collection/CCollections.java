@@ -34,10 +34,16 @@ import com.github.sviperll.collection.snapshotable.ImmutableCollections;
 import com.github.sviperll.collection.snapshotable.Snapshot;
 import com.github.sviperll.collection.snapshotable.SnapshotableList;
 import com.github.sviperll.collection.snapshotable.SnapshotableMap;
+import com.github.sviperll.collection.snapshotable.SnapshotableSet;
+import com.github.sviperll.collection.snapshotable.SnapshotableSortedMap;
+import com.github.sviperll.collection.snapshotable.SnapshotableSortedSet;
+import com.github.sviperll.stream.Stream;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
 
 /**
  *
@@ -61,11 +67,35 @@ public class CCollections {
     }
 
     public static <K extends Comparable<? super K>, V> Map<K, V> newTreeMap() {
-        return new SnapshotableMap<>(MapFactories.<K, V>treeMap());
+        return newSortedTreeMap();
     }
 
     public static <K extends Comparable<? super K>, V> Map<K, V> newTreeMap(Map<? extends K, ? extends V> m) {
-        return new SnapshotableMap<>(MapFactories.treeMap(), m);
+        return newSortedTreeMap(m);
+    }
+
+    public static <K extends Comparable<? super K>, V> SortedMap<K, V> newSortedTreeMap() {
+        return new SnapshotableSortedMap<>(MapFactories.<K, V>sortedTreeMap());
+    }
+
+    public static <K extends Comparable<? super K>, V> SortedMap<K, V> newSortedTreeMap(Map<? extends K, ? extends V> m) {
+        return new SnapshotableSortedMap<>(MapFactories.sortedTreeMap(), m);
+    }
+
+    public static <T> Set<T> newHashSet() {
+        return new SnapshotableSet<>(MapFactories.hashMap());
+    }
+
+    public static <T> Set<T> newHashSet(Collection<? extends T> c) {
+        return new SnapshotableSet<>(MapFactories.hashMap(), c);
+    }
+
+    public static <T extends Comparable<? super T>> SortedSet<T> newTreeSet() {
+        return new SnapshotableSortedSet<>(MapFactories.<T, Boolean>sortedTreeMap());
+    }
+
+    public static <T extends Comparable<? super T>> SortedSet<T> newTreeSet(Collection<? extends T> c) {
+        return new SnapshotableSortedSet<>(MapFactories.<T, Boolean>sortedTreeMap(), c);
     }
 
     public static <E> List<? extends E> listOf() {
@@ -108,6 +138,11 @@ public class CCollections {
         return Snapshot.unmodifiableCollectionSnapshotOf(argument);
     }
 
+    public static <K, V> Stream<MapChange<K, V>> changesBetween(Map<? extends K, ? extends V> older,
+                                                                Map<? extends K, ? extends V> newer) {
+        return Snapshot.changesBetween(older, newer);
+    }
+
     private CCollections() {
     }
 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Allocator of direct NIO buffers.
+ * <p>
+ * Buffers are slices of large direct slabs, so that
+ * native memory is reserved once per slab and not per buffer.
+ * Freed buffers are returned to the arena and are reused by subsequent allocations.
+ * Arena grows to the peak number of simultaneously allocated buffers and is never shrunk.
+ * <p>
+ * Free buffers are kept in lock-free stack of buffer indexes tagged with modification stamp,
+ * so neither allocation nor free creates garbage besides buffer handle.
+ * <p>
+ * Allocated buffers are not backed by arrays, {@link ByteBufferAllocator.ByteBuffer#nioBuffer()}
+ * should be used to access them.
+ * NIO buffer is cleared, but its contents are not zeroed, when it is allocated.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class DirectByteBufferAllocator implements ByteBufferAllocator {
+    private static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+    /**
+     * Creates allocator of direct buffers of given size allocated in slabs of about 1 MiB.
+     */
+    public static DirectByteBufferAllocator createInstance(int size) {
+        return createInstance(size, Math.max(1, DEFAULT_SLAB_SIZE / Math.max(1, size)));
+    }
+
+    /**
+     * Creates allocator of direct buffers of given size allocated in slabs of buffersPerSlab buffers.
+     */
+    public static DirectByteBufferAllocator createInstance(int size, int buffersPerSlab) {
+        if (size <= 0)
+            throw new IllegalArgumentException("size should be positive: " + size);
+        if (buffersPerSlab <= 0)
+            throw new IllegalArgumentException("buffersPerSlab should be positive: " + buffersPerSlab);
+        if ((long)size * buffersPerSlab > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Slab is too large: " + size + " * " + buffersPerSlab);
+        return new DirectByteBufferAllocator(size, buffersPerSlab);
+    }
+
+    private static long head(long stamp, int index) {
+        return (stamp << 32) | (index + 1L);
+    }
+
+    private static int indexOf(long head) {
+        return (int)head - 1;
+    }
+
+    private final int size;
+    private final int buffersPerSlab;
+    private final Lock growthLock = new ReentrantLock();
+    private volatile Slab[] slabs = new Slab[0];
+
+    /**
+     * Stamp in high bits and index of the top free buffer plus one in low bits.
+     */
+    private final AtomicLong freeListHead = new AtomicLong(head(0, -1));
+
+    private DirectByteBufferAllocator(int size, int buffersPerSlab) {
+        this.size = size;
+        this.buffersPerSlab = buffersPerSlab;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Direct memory reserved by this allocator's slabs.
+     */
+    public long reservedBytes() {
+        return (long)slabs.length * buffersPerSlab * size;
+    }
+
+    @Override
+    public ByteBuffer allocateByteBuffer() {
+        for (;;) {
+            long head = freeListHead.get();
+            int index = indexOf(head);
+            if (index < 0) {
+                grow();
+                continue;
+            }
+            Slab slab = slabs[index / buffersPerSlab];
+            int next = slab.next[index % buffersPerSlab];
+            if (freeListHead.compareAndSet(head, head((head >>> 32) + 1, next))) {
+                java.nio.ByteBuffer buffer = slab.buffers[index % buffersPerSlab];
+                buffer.clear();
+                return new DirectByteBuffer(index, buffer);
+            }
+        }
+    }
+
+    private void free(int index) {
+        Slab slab = slabs[index / buffersPerSlab];
+        for (;;) {
+            long head = freeListHead.get();
+            slab.next[index % buffersPerSlab] = indexOf(head);
+            if (freeListHead.compareAndSet(head, head((head >>> 32) + 1, index)))
+                return;
+        }
+    }
+
+    private void grow() {
+        growthLock.lock();
+        try {
+            if (indexOf(freeListHead.get()) >= 0)
+                return;
+            Slab[] oldSlabs = slabs;
+            Slab[] newSlabs = new Slab[oldSlabs.length + 1];
+            System.arraycopy(oldSlabs, 0, newSlabs, 0, oldSlabs.length);
+            newSlabs[oldSlabs.length] = new Slab(size, buffersPerSlab);
+            // Slab should be visible before its buffers are pushed into free list
+            slabs = newSlabs;
+            int firstIndex = oldSlabs.length * buffersPerSlab;
+            for (int i = 0; i < buffersPerSlab; i++) {
+                free(firstIndex + i);
+            }
+        } finally {
+            growthLock.unlock();
+        }
+    }
+
+    private static class Slab {
+        private final java.nio.ByteBuffer[] buffers;
+        private final int[] next;
+
+        Slab(int size, int buffersPerSlab) {
+            java.nio.ByteBuffer memory = java.nio.ByteBuffer.allocateDirect(size * buffersPerSlab);
+            buffers = new java.nio.ByteBuffer[buffersPerSlab];
+            next = new int[buffersPerSlab];
+            for (int i = 0; i < buffersPerSlab; i++) {
+                memory.limit((i + 1) * size);
+                memory.position(i * size);
+                buffers[i] = memory.slice();
+            }
+        }
+    }
+
+    private class DirectByteBuffer implements ByteBuffer {
+        private final int index;
+        private java.nio.ByteBuffer buffer;
+
+        DirectByteBuffer(int index, java.nio.ByteBuffer buffer) {
+            this.index = index;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public byte[] array() {
+            throw new UnsupportedOperationException("Direct buffer is not backed by array");
+        }
+
+        @Override
+        public boolean hasArray() {
+            return false;
+        }
+
+        @Override
+        public java.nio.ByteBuffer nioBuffer() {
+            if (buffer == null)
+                throw new IllegalStateException("Buffer is already freed");
+            return buffer;
+        }
+
+        @Override
+        public void free() {
+            nioBuffer();
+            buffer = null;
+            DirectByteBufferAllocator.this.free(index);
+        }
+    }
+}
@@ -0,0 +1,732 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import com.github.sviperll.stream.SaturableConsuming;
+import com.github.sviperll.stream.Stream;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Hash map backed by hash array mapped trie.
+ * <p>
+ * {@link HashTrieMap#copy()} takes constant time: copy shares trie nodes with original map.
+ * Nodes are owned by the map that created them and are modified in place by their owner.
+ * When map is copied both maps lose ownership of all existing nodes, so the first write to
+ * any part of the trie after copy copies only nodes on the path from root to changed entry,
+ * that is O(log n) nodes.
+ * <p>
+ * Iterators iterate over the state of the map at the moment iterator was created
+ * and never throw ConcurrentModificationException.
+ * <p>
+ * Map returned by {@link HashTrieMap#copy()} owns no nodes, and neither reads nor iteration
+ * modify such map until it is written to.
+ * Safely published copy can be read by any number of threads at once.
+ * Null keys and null values are permitted.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class HashTrieMap<K, V> extends AbstractMap<K, V> {
+    private static final Object NOT_FOUND = new Object();
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * Seven bitmap levels cover 32 bits of hash and collision node can be the eighth
+     */
+    private static final int MAXIMUM_DEPTH = 8;
+
+    public static <K, V> HashTrieMap<K, V> createInstance() {
+        return new HashTrieMap<>(null, 0, false, null);
+    }
+
+    /**
+     * Copy of given map.
+     * <p>
+     * Takes constant time when given map is HashTrieMap.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> HashTrieMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof HashTrieMap)
+            return ((HashTrieMap<K, V>)map).copy();
+        else {
+            HashTrieMap<K, V> result = createInstance();
+            result.putAll(map);
+            return result;
+        }
+    }
+
+    /**
+     * Changes that turn the first map into the second one, in unspecified order.
+     * <p>
+     * Changes are computed between the states of the maps at the moment of this call.
+     * Subtries that are shared by the maps are skipped, so when one map is a recent copy
+     * of the other, changes are computed in time proportional to number of changes
+     * rather than to the size of the maps.
+     */
+    public static <K, V> Stream<MapChange<K, V>> changes(HashTrieMap<? extends K, ? extends V> from,
+                                                         HashTrieMap<? extends K, ? extends V> to) {
+        HashTrieMap<? extends K, ? extends V> fromCopy = from.copy();
+        HashTrieMap<? extends K, ? extends V> toCopy = to.copy();
+        return Stream.of((SaturableConsuming<? super MapChange<K, V>> consumer) -> {
+            new Diff<K, V>(consumer).compare(fromCopy, toCopy);
+        });
+    }
+
+    static int hash(Object key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int bitPosition(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Token of nodes owned by this map or null when map owns no nodes
+     */
+    private Object edit = null;
+    private Node root;
+    private int size;
+    private boolean hasNullKey;
+    private V nullKeyValue;
+    private Set<Map.Entry<K, V>> entrySet = null;
+
+    private HashTrieMap(Node root, int size, boolean hasNullKey, V nullKeyValue) {
+        this.root = root;
+        this.size = size;
+        this.hasNullKey = hasNullKey;
+        this.nullKeyValue = nullKeyValue;
+    }
+
+    /**
+     * Copy of this map that shares structure with this map.
+     */
+    public HashTrieMap<K, V> copy() {
+        disown();
+        return new HashTrieMap<>(root, size, hasNullKey, nullKeyValue);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != NOT_FOUND;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Object value = find(key);
+        return value == NOT_FOUND ? null : (V)value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        if (key == null) {
+            V oldValue = nullKeyValue;
+            if (!hasNullKey)
+                size++;
+            hasNullKey = true;
+            nullKeyValue = value;
+            return oldValue;
+        } else {
+            Change change = new Change();
+            Object edit = ownedEdit();
+            Node node = root == null ? new BitmapIndexedNode(edit, 0, new Object[0]) : root;
+            root = node.put(edit, 0, hash(key), key, value, change);
+            if (change.sizeChanged)
+                size++;
+            return change.oldValue == NOT_FOUND ? null : (V)change.oldValue;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (key == null) {
+            V oldValue = nullKeyValue;
+            if (hasNullKey)
+                size--;
+            hasNullKey = false;
+            nullKeyValue = null;
+            return oldValue;
+        } else if (root == null)
+            return null;
+        else {
+            Change change = new Change();
+            root = root.remove(ownedEdit(), 0, hash(key), key, change);
+            if (change.sizeChanged)
+                size--;
+            return change.oldValue == NOT_FOUND ? null : (V)change.oldValue;
+        }
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+        hasNullKey = false;
+        nullKeyValue = null;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null)
+            entrySet = new EntrySet();
+        return entrySet;
+    }
+
+    /**
+     * Makes map lose ownership of all existing nodes.
+     * <p>
+     * Map that already owns no nodes is not written to.
+     */
+    private void disown() {
+        if (edit != null)
+            edit = null;
+    }
+
+    /**
+     * Token of nodes that can be modified in place by this map.
+     */
+    private Object ownedEdit() {
+        if (edit == null)
+            edit = new Object();
+        return edit;
+    }
+
+    private Object find(Object key) {
+        if (key == null)
+            return hasNullKey ? nullKeyValue : NOT_FOUND;
+        else if (root == null)
+            return NOT_FOUND;
+        else
+            return root.find(0, hash(key), key);
+    }
+
+    private static class Change {
+        boolean sizeChanged = false;
+        Object oldValue = NOT_FOUND;
+    }
+
+    /**
+     * Trie node.
+     * <p>
+     * Array holds key-value pairs, null key denotes that value is a child node.
+     */
+    abstract static class Node {
+        final Object edit;
+        Object[] array;
+
+        Node(Object edit, Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+
+        abstract Object find(int shift, int hash, Object key);
+        abstract Node put(Object edit, int shift, int hash, Object key, Object value, Change change);
+        abstract Node remove(Object edit, int shift, int hash, Object key, Change change);
+    }
+
+    static class BitmapIndexedNode extends Node {
+        int bitmap;
+
+        BitmapIndexedNode(Object edit, int bitmap, Object[] array) {
+            super(edit, array);
+            this.bitmap = bitmap;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = bitPosition(hash, shift);
+            if ((bitmap & bit) == 0)
+                return NOT_FOUND;
+            int index = index(bit);
+            Object entryKey = array[2 * index];
+            Object entryValue = array[2 * index + 1];
+            if (entryKey == null)
+                return ((Node)entryValue).find(shift + BITS, hash, key);
+            else if (key.equals(entryKey))
+                return entryValue;
+            else
+                return NOT_FOUND;
+        }
+
+        @Override
+        Node put(Object edit, int shift, int hash, Object key, Object value, Change change) {
+            int bit = bitPosition(hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) != 0) {
+                Object entryKey = array[2 * index];
+                Object entryValue = array[2 * index + 1];
+                if (entryKey == null) {
+                    Node child = ((Node)entryValue).put(edit, shift + BITS, hash, key, value, change);
+                    return child == entryValue ? this : withSlot(edit, index, null, child);
+                } else if (key.equals(entryKey)) {
+                    change.oldValue = entryValue;
+                    return entryValue == value ? this : withSlot(edit, index, entryKey, value);
+                } else {
+                    change.sizeChanged = true;
+                    Node child = createNode(edit, shift + BITS, entryKey, entryValue, hash, key, value);
+                    return withSlot(edit, index, null, child);
+                }
+            } else {
+                change.sizeChanged = true;
+                int count = Integer.bitCount(bitmap);
+                Object[] newArray = new Object[2 * (count + 1)];
+                System.arraycopy(array, 0, newArray, 0, 2 * index);
+                newArray[2 * index] = key;
+                newArray[2 * index + 1] = value;
+                System.arraycopy(array, 2 * index, newArray, 2 * (index + 1), 2 * (count - index));
+                if (this.edit == edit) {
+                    array = newArray;
+                    bitmap |= bit;
+                    return this;
+                } else
+                    return new BitmapIndexedNode(edit, bitmap | bit, newArray);
+            }
+        }
+
+        @Override
+        Node remove(Object edit, int shift, int hash, Object key, Change change) {
+            int bit = bitPosition(hash, shift);
+            if ((bitmap & bit) == 0)
+                return this;
+            int index = index(bit);
+            Object entryKey = array[2 * index];
+            Object entryValue = array[2 * index + 1];
+            if (entryKey == null) {
+                Node child = ((Node)entryValue).remove(edit, shift + BITS, hash, key, change);
+                if (child == entryValue)
+                    return this;
+                else if (child == null)
+                    return withoutSlot(edit, bit, index);
+                else if (child instanceof BitmapIndexedNode && child.array.length == 2 && child.array[0] != null)
+                    // Single remaining entry is moved up, so that trie is never deeper than needed
+                    return withSlot(edit, index, child.array[0], child.array[1]);
+                else
+                    return withSlot(edit, index, null, child);
+            } else if (key.equals(entryKey)) {
+                change.sizeChanged = true;
+                change.oldValue = entryValue;
+                return withoutSlot(edit, bit, index);
+            } else
+                return this;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private Node withSlot(Object edit, int index, Object key, Object value) {
+            BitmapIndexedNode node = this.edit == edit ? this : new BitmapIndexedNode(edit, bitmap, array.clone());
+            node.array[2 * index] = key;
+            node.array[2 * index + 1] = value;
+            return node;
+        }
+
+        private Node withoutSlot(Object edit, int bit, int index) {
+            if (bitmap == bit)
+                return null;
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, 2 * index);
+            System.arraycopy(array, 2 * (index + 1), newArray, 2 * index, newArray.length - 2 * index);
+            if (this.edit == edit) {
+                array = newArray;
+                bitmap ^= bit;
+                return this;
+            } else
+                return new BitmapIndexedNode(edit, bitmap ^ bit, newArray);
+        }
+
+        private static Node createNode(Object edit, int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2)
+                return new CollisionNode(edit, hash1, new Object[] {key1, value1, key2, value2});
+            else {
+                Change change = new Change();
+                return new BitmapIndexedNode(edit, 0, new Object[0])
+                        .put(edit, shift, hash1, key1, value1, change)
+                        .put(edit, shift, hash2, key2, value2, change);
+            }
+        }
+    }
+
+    static class CollisionNode extends Node {
+        final int hash;
+
+        CollisionNode(Object edit, int hash, Object[] array) {
+            super(edit, array);
+            this.hash = hash;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int index = index(key);
+            return index < 0 ? NOT_FOUND : array[index + 1];
+        }
+
+        @Override
+        Node put(Object edit, int shift, int hash, Object key, Object value, Change change) {
+            if (hash != this.hash) {
+                Node node = new BitmapIndexedNode(edit, bitPosition(this.hash, shift), new Object[] {null, this});
+                return node.put(edit, shift, hash, key, value, change);
+            }
+            int index = index(key);
+            if (index >= 0) {
+                change.oldValue = array[index + 1];
+                if (array[index + 1] == value)
+                    return this;
+                CollisionNode node = this.edit == edit ? this : new CollisionNode(edit, hash, array.clone());
+                node.array[index + 1] = value;
+                return node;
+            } else {
+                change.sizeChanged = true;
+                Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, array.length);
+                newArray[array.length] = key;
+                newArray[array.length + 1] = value;
+                if (this.edit == edit) {
+                    array = newArray;
+                    return this;
+                } else
+                    return new CollisionNode(edit, hash, newArray);
+            }
+        }
+
+        @Override
+        Node remove(Object edit, int shift, int hash, Object key, Change change) {
+            int index = index(key);
+            if (index < 0)
+                return this;
+            change.sizeChanged = true;
+            change.oldValue = array[index + 1];
+            if (array.length == 4) {
+                int remaining = 2 - index;
+                return new BitmapIndexedNode(edit, bitPosition(this.hash, shift),
+                                             new Object[] {array[remaining], array[remaining + 1]});
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, index);
+            System.arraycopy(array, index + 2, newArray, index, newArray.length - index);
+            if (this.edit == edit) {
+                array = newArray;
+                return this;
+            } else
+                return new CollisionNode(edit, hash, newArray);
+        }
+
+        private int index(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i]))
+                    return i;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Walks two tries simultaneously and skips identical subtries.
+     * <p>
+     * Identical nodes are never modified since both maps have lost their ownership.
+     * Slots where one trie has an entry and the other one has a subtrie, and collision nodes
+     * are compared entry by entry.
+     */
+    private static class Diff<K, V> {
+        private final SaturableConsuming<? super MapChange<K, V>> consumer;
+
+        Diff(SaturableConsuming<? super MapChange<K, V>> consumer) {
+            this.consumer = consumer;
+        }
+
+        void compare(HashTrieMap<?, ?> from, HashTrieMap<?, ?> to) {
+            if (from.hasNullKey && !to.hasNullKey) {
+                if (!remove(null))
+                    return;
+            } else if (to.hasNullKey && !(from.hasNullKey && Objects.equals(from.nullKeyValue, to.nullKeyValue))) {
+                if (!put(null, to.nullKeyValue))
+                    return;
+            }
+            compare(from.root, to.root);
+        }
+
+        private boolean compare(Node from, Node to) {
+            if (from == to)
+                return true;
+            else if (from == null)
+                return putAll(to);
+            else if (to == null)
+                return removeAll(from);
+            else if (!(from instanceof BitmapIndexedNode && to instanceof BitmapIndexedNode))
+                return compareEntries(null, from, null, to);
+            else {
+                int fromBitmap = ((BitmapIndexedNode)from).bitmap;
+                int toBitmap = ((BitmapIndexedNode)to).bitmap;
+                int fromIndex = 0;
+                int toIndex = 0;
+                for (int bits = fromBitmap | toBitmap; bits != 0; bits &= bits - 1) {
+                    int bit = Integer.lowestOneBit(bits);
+                    boolean result;
+                    if ((toBitmap & bit) == 0) {
+                        result = removeSlot(from.array[2 * fromIndex], from.array[2 * fromIndex + 1]);
+                        fromIndex++;
+                    } else if ((fromBitmap & bit) == 0) {
+                        result = putSlot(to.array[2 * toIndex], to.array[2 * toIndex + 1]);
+                        toIndex++;
+                    } else {
+                        result = compareSlots(from.array[2 * fromIndex], from.array[2 * fromIndex + 1],
+                                              to.array[2 * toIndex], to.array[2 * toIndex + 1]);
+                        fromIndex++;
+                        toIndex++;
+                    }
+                    if (!result)
+                        return false;
+                }
+                return true;
+            }
+        }
+
+        private boolean compareSlots(Object fromKey, Object fromValue, Object toKey, Object toValue) {
+            if (fromKey == null && toKey == null)
+                return compare((Node)fromValue, (Node)toValue);
+            else if (fromKey != null && toKey != null) {
+                if (!fromKey.equals(toKey))
+                    return remove(fromKey) && put(toKey, toValue);
+                else if (!Objects.equals(fromValue, toValue))
+                    return put(toKey, toValue);
+                else
+                    return true;
+            } else
+                return compareEntries(fromKey, fromValue, toKey, toValue);
+        }
+
+        private boolean compareEntries(Object fromKey, Object fromValue, Object toKey, Object toValue) {
+            Map<Object, Object> from = new HashMap<>();
+            Map<Object, Object> to = new HashMap<>();
+            collectSlot(fromKey, fromValue, from);
+            collectSlot(toKey, toValue, to);
+            for (Map.Entry<Object, Object> entry: to.entrySet()) {
+                Object key = entry.getKey();
+                Object value = entry.getValue();
+                if (!(from.containsKey(key) && Objects.equals(from.get(key), value)) && !put(key, value))
+                    return false;
+            }
+            for (Object key: from.keySet()) {
+                if (!to.containsKey(key) && !remove(key))
+                    return false;
+            }
+            return true;
+        }
+
+        private void collectSlot(Object key, Object value, Map<Object, Object> entries) {
+            if (key != null)
+                entries.put(key, value);
+            else {
+                Object[] array = ((Node)value).array;
+                for (int i = 0; i < array.length; i += 2)
+                    collectSlot(array[i], array[i + 1], entries);
+            }
+        }
+
+        private boolean putAll(Node node) {
+            for (int i = 0; i < node.array.length; i += 2) {
+                if (!putSlot(node.array[i], node.array[i + 1]))
+                    return false;
+            }
+            return true;
+        }
+
+        private boolean removeAll(Node node) {
+            for (int i = 0; i < node.array.length; i += 2) {
+                if (!removeSlot(node.array[i], node.array[i + 1]))
+                    return false;
+            }
+            return true;
+        }
+
+        private boolean putSlot(Object key, Object value) {
+            return key == null ? putAll((Node)value) : put(key, value);
+        }
+
+        private boolean removeSlot(Object key, Object value) {
+            return key == null ? removeAll((Node)value) : remove(key);
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean put(Object key, Object value) {
+            if (!consumer.needsMore())
+                return false;
+            consumer.accept(MapChange.put((K)key, (V)value));
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean remove(Object key) {
+            if (!consumer.needsMore())
+                return false;
+            consumer.accept(MapChange.<K, V>remove((K)key));
+            return true;
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>)o;
+            Object value = find(entry.getKey());
+            return value != NOT_FOUND && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!contains(o))
+                return false;
+            HashTrieMap.this.remove(((Map.Entry<?, ?>)o).getKey());
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            HashTrieMap.this.clear();
+        }
+    }
+
+    private class Entry extends AbstractMap.SimpleEntry<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        Entry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    /**
+     * Iterator over trie nodes.
+     * <p>
+     * Map loses ownership of its nodes when iterator is created, so that
+     * modifications of map never change nodes that are being iterated.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private final Object[][] arrays = new Object[MAXIMUM_DEPTH][];
+        private final int[] positions = new int[MAXIMUM_DEPTH];
+        private int depth = -1;
+        private boolean mustReturnNullKey = hasNullKey;
+        private final V nullKey = nullKeyValue;
+        private Entry next = null;
+        private Entry last = null;
+
+        EntryIterator() {
+            disown();
+            if (root != null)
+                push(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null)
+                next = advance();
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            last = next;
+            next = null;
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null)
+                throw new IllegalStateException();
+            HashTrieMap.this.remove(last.getKey());
+            last = null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Entry advance() {
+            if (mustReturnNullKey) {
+                mustReturnNullKey = false;
+                return new Entry(null, nullKey);
+            }
+            while (depth >= 0) {
+                Object[] array = arrays[depth];
+                int position = positions[depth];
+                if (position >= array.length) {
+                    arrays[depth] = null;
+                    depth--;
+                } else {
+                    positions[depth] = position + 2;
+                    if (array[position] == null)
+                        push((Node)array[position + 1]);
+                    else
+                        return new Entry((K)array[position], (V)array[position + 1]);
+                }
+            }
+            return null;
+        }
+
+        private void push(Node node) {
+            depth++;
+            arrays[depth] = node.array;
+            positions[depth] = 0;
+        }
+    }
+}
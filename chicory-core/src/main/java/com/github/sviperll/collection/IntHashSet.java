@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Hash set of int values.
+ * <p>
+ * Values are stored unboxed in open addressing table with linear probing.
+ * Removal shifts following entries back instead of leaving tombstones, so
+ * table never degrades after many removals.
+ * Zero is used to mark free slots and is kept separately.
+ * <p>
+ * IntHashSet is also a {@code Set<Integer>}, but
+ * methods with Int in their names should be used to avoid boxing.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+@ParametersAreNonnullByDefault
+public class IntHashSet extends AbstractSet<Integer> {
+    public static IntHashSet createInstance() {
+        return createInstance(0);
+    }
+
+    public static IntHashSet createInstance(int expectedSize) {
+        return new IntHashSet(PrimitiveHashing.tableSize(expectedSize));
+    }
+
+    public static IntHashSet copyOf(int... values) {
+        IntHashSet result = createInstance(values.length);
+        for (int value: values)
+            result.addInt(value);
+        return result;
+    }
+
+    private int[] keys;
+    private int mask;
+    private int maxFill;
+    private boolean containsZero = false;
+    private int size = 0;
+    private int modCount = 0;
+
+    private IntHashSet(int tableSize) {
+        allocate(tableSize);
+    }
+
+    public boolean containsInt(int value) {
+        if (value == 0)
+            return containsZero;
+        int[] keys = this.keys;
+        int i = PrimitiveHashing.mix(value) & mask;
+        for (int key; (key = keys[i]) != 0; i = (i + 1) & mask) {
+            if (key == value)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if value was not already contained
+     */
+    public boolean addInt(int value) {
+        if (value == 0) {
+            if (containsZero)
+                return false;
+            containsZero = true;
+        } else {
+            int i = PrimitiveHashing.mix(value) & mask;
+            for (int key; (key = keys[i]) != 0; i = (i + 1) & mask) {
+                if (key == value)
+                    return false;
+            }
+            keys[i] = value;
+            if (size + 1 >= maxFill)
+                rehash(PrimitiveHashing.grownTableSize(keys.length));
+        }
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * @return true if value was contained
+     */
+    public boolean removeInt(int value) {
+        if (value == 0) {
+            if (!containsZero)
+                return false;
+            containsZero = false;
+        } else {
+            int i = PrimitiveHashing.mix(value) & mask;
+            for (int key; (key = keys[i]) != 0; i = (i + 1) & mask) {
+                if (key == value)
+                    break;
+            }
+            if (keys[i] == 0)
+                return false;
+            shiftKeys(i, null);
+        }
+        size--;
+        modCount++;
+        return true;
+    }
+
+    public int[] toIntArray() {
+        int[] result = new int[size];
+        int j = 0;
+        if (containsZero)
+            result[j++] = 0;
+        for (int key: keys) {
+            if (key != 0)
+                result[j++] = key;
+        }
+        return result;
+    }
+
+    public void forEachInt(IntConsumer action) {
+        int expectedModCount = modCount;
+        if (containsZero)
+            action.accept(0);
+        int[] keys = this.keys;
+        for (int i = 0; i < keys.length && modCount == expectedModCount; i++) {
+            if (keys[i] != 0)
+                action.accept(keys[i]);
+        }
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    public IntStream intStream() {
+        IntStream table = Arrays.stream(keys).filter(key -> key != 0);
+        return containsZero ? IntStream.concat(IntStream.of(0), table) : table;
+    }
+
+    /**
+     * Iterator of values that avoids boxing.
+     */
+    public PrimitiveIterator.OfInt intIterator() {
+        return new HashSetIterator();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && containsInt((Integer)o);
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        return addInt(value);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer && removeInt((Integer)o);
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return intIterator();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, 0);
+            containsZero = false;
+            size = 0;
+            modCount++;
+        }
+    }
+
+    private void allocate(int tableSize) {
+        keys = new int[tableSize];
+        mask = tableSize - 1;
+        maxFill = PrimitiveHashing.maxFill(tableSize);
+    }
+
+    private void rehash(int tableSize) {
+        int[] oldKeys = keys;
+        allocate(tableSize);
+        for (int key: oldKeys) {
+            if (key != 0) {
+                int i = PrimitiveHashing.mix(key) & mask;
+                while (keys[i] != 0)
+                    i = (i + 1) & mask;
+                keys[i] = key;
+            }
+        }
+    }
+
+    /**
+     * Frees given position and moves following entries of the same probe sequence back.
+     * <p>
+     * Entries that are moved from the beginning to the end of the table are added to wrapped list
+     * when it is given.
+     */
+    private void shiftKeys(int position, IntArrayList wrapped) {
+        for (;;) {
+            int last = position;
+            position = (position + 1) & mask;
+            int key;
+            for (;;) {
+                key = keys[position];
+                if (key == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+                int slot = PrimitiveHashing.mix(key) & mask;
+                if (PrimitiveHashing.shouldShift(last, slot, position))
+                    break;
+                position = (position + 1) & mask;
+            }
+            if (wrapped != null && position < last)
+                wrapped.addInt(key);
+            keys[last] = key;
+        }
+    }
+
+    /**
+     * Iterator that traverses table from the end.
+     * <p>
+     * Removal can move entries that are not yet traversed from the beginning of the table
+     * behind current position. Such entries are remembered and returned after table is traversed.
+     */
+    private class HashSetIterator implements PrimitiveIterator.OfInt {
+        private int position = keys.length;
+        private int remaining = size;
+        private boolean mustReturnZero = containsZero;
+        private int last = -1;
+        private IntArrayList wrapped = null;
+        private int expectedModCount = modCount;
+
+        HashSetIterator() {
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining <= 0)
+                throw new NoSuchElementException();
+            remaining--;
+            if (mustReturnZero) {
+                mustReturnZero = false;
+                last = keys.length;
+                return 0;
+            }
+            for (;;) {
+                position--;
+                if (position < 0) {
+                    last = Integer.MIN_VALUE;
+                    return wrapped.getInt(-position - 1);
+                }
+                if (keys[position] != 0) {
+                    last = position;
+                    return keys[position];
+                }
+            }
+        }
+
+        @Override
+        public void remove() {
+            if (last == -1)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (last == keys.length) {
+                containsZero = false;
+                size--;
+                modCount++;
+            } else if (last >= 0) {
+                if (wrapped == null)
+                    wrapped = IntArrayList.createInstance(2);
+                shiftKeys(last, wrapped);
+                size--;
+                modCount++;
+            } else {
+                removeInt(wrapped.getInt(-position - 1));
+            }
+            expectedModCount = modCount;
+            last = -1;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * List of int values with unboxed accessors and bulk operations.
+ *
+ * @see CArrays#asIntList(int...)
+ * @see IntArrayList
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+@ParametersAreNonnullByDefault
+public interface IntList extends List<Integer> {
+    int getInt(int index);
+
+    /**
+     * @return old value
+     */
+    int setInt(int index, int value);
+
+    int indexOfInt(int value);
+
+    int lastIndexOfInt(int value);
+
+    default boolean containsInt(int value) {
+        return indexOfInt(value) >= 0;
+    }
+
+    /**
+     * Copies all values into destination array starting at given offset.
+     */
+    void copyInto(int[] destination, int offset);
+
+    default int[] toIntArray() {
+        int[] result = new int[size()];
+        copyInto(result, 0);
+        return result;
+    }
+
+    /**
+     * Sum of values.
+     * <p>
+     * Sum is computed as long, so it does not overflow unlike {@link IntStream#sum()}.
+     */
+    long sum();
+
+    /**
+     * Sorts values in ascending order.
+     */
+    void sort();
+
+    @Override
+    Spliterator.OfInt spliterator();
+
+    default PrimitiveIterator.OfInt intIterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    default void forEachInt(IntConsumer action) {
+        spliterator().forEachRemaining(action);
+    }
+
+    default IntStream intStream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+}
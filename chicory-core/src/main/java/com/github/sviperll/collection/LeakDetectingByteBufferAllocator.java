@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Allocator decorator that accounts allocated buffers and detects leaked buffers.
+ * <p>
+ * Every allocated buffer is tracked until it is freed.
+ * Buffers that become unreachable without being freed are detected as leaks with the help of
+ * phantom references. Leaks are detected during subsequent allocations or when
+ * {@link LeakDetectingByteBufferAllocator#detectLeaks()} is called,
+ * and are logged with WARNING level.
+ * <p>
+ * Allocation stack traces are recorded for one in stackTraceSamplingInterval allocations on average,
+ * leak report includes allocation stack trace when it was recorded.
+ * Stack traces are expensive, so sampling interval should be large enough when
+ * allocator is used with production load.
+ * <p>
+ * Buffers returned by this allocator throw IllegalStateException when they are freed twice.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class LeakDetectingByteBufferAllocator implements ByteBufferAllocator {
+    private static final Logger logger = Logger.getLogger(LeakDetectingByteBufferAllocator.class.getName());
+
+    /**
+     * Creates decorator that records no allocation stack traces.
+     */
+    public static LeakDetectingByteBufferAllocator createInstance(ByteBufferAllocator allocator) {
+        return createInstance(allocator, 0);
+    }
+
+    /**
+     * Creates decorator that records allocation stack trace for one in stackTraceSamplingInterval allocations.
+     * <p>
+     * Zero interval means that no stack traces are recorded, interval of one means that every
+     * stack trace is recorded.
+     */
+    public static LeakDetectingByteBufferAllocator createInstance(ByteBufferAllocator allocator,
+                                                                  int stackTraceSamplingInterval) {
+        if (stackTraceSamplingInterval < 0)
+            throw new IllegalArgumentException("stackTraceSamplingInterval should not be negative: "
+                                               + stackTraceSamplingInterval);
+        return new LeakDetectingByteBufferAllocator(allocator, stackTraceSamplingInterval);
+    }
+
+    private final ByteBufferAllocator allocator;
+    private final int stackTraceSamplingInterval;
+    private final ReferenceQueue<TrackedByteBuffer> queue = new ReferenceQueue<>();
+    private final Set<Tracking> tracked = ConcurrentHashMap.newKeySet();
+    private final LongAdder allocationCount = new LongAdder();
+    private final LongAdder freeCount = new LongAdder();
+    private final LongAdder outstandingBytes = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final LongAdder leakedBytes = new LongAdder();
+
+    private LeakDetectingByteBufferAllocator(ByteBufferAllocator allocator, int stackTraceSamplingInterval) {
+        this.allocator = allocator;
+        this.stackTraceSamplingInterval = stackTraceSamplingInterval;
+    }
+
+    @Override
+    public ByteBuffer allocateByteBuffer() {
+        detectLeaks();
+        ByteBuffer buffer = allocator.allocateByteBuffer();
+        int size = buffer.size();
+        Throwable allocationTrace = null;
+        if (stackTraceSamplingInterval > 0 && ThreadLocalRandom.current().nextInt(stackTraceSamplingInterval) == 0)
+            allocationTrace = new Throwable("Buffer allocation stack trace");
+        TrackedByteBuffer result = new TrackedByteBuffer(buffer);
+        result.tracking = new Tracking(result, queue, size, allocationTrace);
+        tracked.add(result.tracking);
+        allocationCount.increment();
+        outstandingBytes.add(size);
+        return result;
+    }
+
+    /**
+     * Processes buffers that became unreachable without being freed.
+     *
+     * @return number of newly detected leaks
+     */
+    public int detectLeaks() {
+        int count = 0;
+        for (;;) {
+            Tracking tracking = (Tracking)queue.poll();
+            if (tracking == null)
+                return count;
+            if (tracked.remove(tracking)) {
+                count++;
+                leakCount.increment();
+                leakedBytes.add(tracking.size);
+                outstandingBytes.add(-tracking.size);
+                if (tracking.allocationTrace != null)
+                    logger.log(Level.WARNING, "Buffer of " + tracking.size + " bytes was never freed",
+                               tracking.allocationTrace);
+                else
+                    logger.log(Level.WARNING, "Buffer of {0} bytes was never freed", tracking.size);
+            }
+        }
+    }
+
+    public long allocationCount() {
+        return allocationCount.sum();
+    }
+
+    public long freeCount() {
+        return freeCount.sum();
+    }
+
+    /**
+     * Number of buffers that are neither freed nor detected as leaks.
+     */
+    public long outstandingCount() {
+        return tracked.size();
+    }
+
+    /**
+     * Size of buffers that are neither freed nor detected as leaks.
+     */
+    public long outstandingBytes() {
+        return outstandingBytes.sum();
+    }
+
+    public long leakCount() {
+        return leakCount.sum();
+    }
+
+    public long leakedBytes() {
+        return leakedBytes.sum();
+    }
+
+    private static class Tracking extends PhantomReference<TrackedByteBuffer> {
+        private final int size;
+        private final Throwable allocationTrace;
+
+        Tracking(TrackedByteBuffer buffer, ReferenceQueue<TrackedByteBuffer> queue, int size, Throwable allocationTrace) {
+            super(buffer, queue);
+            this.size = size;
+            this.allocationTrace = allocationTrace;
+        }
+    }
+
+    private class TrackedByteBuffer implements ByteBuffer {
+        private final ByteBuffer buffer;
+        private Tracking tracking;
+
+        TrackedByteBuffer(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public byte[] array() {
+            return buffer.array();
+        }
+
+        @Override
+        public boolean hasArray() {
+            return buffer.hasArray();
+        }
+
+        @Override
+        public int size() {
+            return buffer.size();
+        }
+
+        @Override
+        public java.nio.ByteBuffer nioBuffer() {
+            return buffer.nioBuffer();
+        }
+
+        @Override
+        public void free() {
+            if (!tracked.remove(tracking))
+                throw new IllegalStateException("Buffer is already freed");
+            tracking.clear();
+            freeCount.increment();
+            outstandingBytes.add(-tracking.size);
+            buffer.free();
+        }
+    }
+}
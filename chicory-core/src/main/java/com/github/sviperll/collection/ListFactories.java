@@ -41,10 +41,24 @@ public class ListFactories {
     @SuppressWarnings("rawtypes")
     private static final ListFactory ARRAY_LIST = new ArrayListFactory();
 
+    @SuppressWarnings("rawtypes")
+    private static final ListFactory VECTOR_TRIE_LIST = new VectorTrieListFactory();
+
     @SuppressWarnings("unchecked")
     public static <T> ListFactory<T> arrayList() {
         return ARRAY_LIST;
     }
+
+    /**
+     * Factory of {@link VectorTrieList}s.
+     * <p>
+     * Copies of VectorTrieList share structure with original list and take constant time,
+     * so SnapshotableList created with this factory has constant time snapshots.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ListFactory<T> vectorTrieList() {
+        return VECTOR_TRIE_LIST;
+    }
     private ListFactories() {
     }
 
@@ -62,4 +76,19 @@ public class ListFactories {
             return new ArrayList<>(values);
         }
     }
+
+    private static class VectorTrieListFactory<T> implements ListFactory<T> {
+        VectorTrieListFactory() {
+        }
+
+        @Override
+        public List<T> createInitialList() {
+            return VectorTrieList.createInstance();
+        }
+
+        @Override
+        public List<T> createCopyOf(Collection<? extends T> values) {
+            return VectorTrieList.copyOf(values);
+        }
+    }
 }
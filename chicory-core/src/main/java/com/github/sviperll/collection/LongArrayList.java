@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Growable list of long values.
+ * <p>
+ * Values are stored unboxed, LongArrayList is also a {@code List<Long>}, but
+ * methods with Long in their names should be used to avoid boxing.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+@ParametersAreNonnullByDefault
+public class LongArrayList extends AbstractList<Long> implements LongList, RandomAccess {
+    private static final long[] EMPTY = new long[0];
+    private static final int DEFAULT_CAPACITY = 10;
+    private static final int MAXIMUM_CAPACITY = Integer.MAX_VALUE - 8;
+
+    public static LongArrayList createInstance() {
+        return new LongArrayList(EMPTY, 0);
+    }
+
+    public static LongArrayList createInstance(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("capacity should not be negative: " + capacity);
+        return new LongArrayList(capacity == 0 ? EMPTY : new long[capacity], 0);
+    }
+
+    /**
+     * Creates list containing copy of given values.
+     */
+    public static LongArrayList copyOf(long... values) {
+        return new LongArrayList(values.clone(), values.length);
+    }
+
+    private long[] values;
+    private int size;
+
+    private LongArrayList(long[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    @Override
+    public long getLong(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * @return old value
+     */
+    @Override
+    public long setLong(int index, long value) {
+        checkIndex(index);
+        long oldValue = values[index];
+        values[index] = value;
+        return oldValue;
+    }
+
+    public void addLong(long value) {
+        modCount++;
+        if (size == values.length)
+            grow(size + 1);
+        values[size++] = value;
+    }
+
+    public void addLong(int index, long value) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        modCount++;
+        if (size == values.length)
+            grow(size + 1);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+    }
+
+    public void addAllLongs(long[] values, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > values.length - length)
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Length: " + length
+                                                + ", Array length: " + values.length);
+        modCount++;
+        if (this.values.length - size < length)
+            grow(size + length);
+        System.arraycopy(values, offset, this.values, size, length);
+        size += length;
+    }
+
+    /**
+     * Removes value at given index.
+     *
+     * @return removed value
+     */
+    public long removeLongAt(int index) {
+        checkIndex(index);
+        modCount++;
+        long oldValue = values[index];
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return oldValue;
+    }
+
+    /**
+     * Removes first occurrence of given value.
+     *
+     * @return true if value was found
+     */
+    public boolean removeLong(long value) {
+        int index = indexOfLong(value);
+        if (index < 0)
+            return false;
+        else {
+            removeLongAt(index);
+            return true;
+        }
+    }
+
+    @Override
+    public int indexOfLong(long value) {
+        for (int i = 0; i < size; i++)
+            if (values[i] == value)
+                return i;
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOfLong(long value) {
+        for (int i = size - 1; i >= 0; i--)
+            if (values[i] == value)
+                return i;
+        return -1;
+    }
+
+    @Override
+    public boolean containsLong(long value) {
+        return indexOfLong(value) >= 0;
+    }
+
+    @Override
+    public long[] toLongArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Sorts values in ascending order.
+     */
+    @Override
+    public void sort() {
+        modCount++;
+        Arrays.sort(values, 0, size);
+    }
+
+    @Override
+    public void forEachLong(LongConsumer action) {
+        int expectedModCount = modCount;
+        for (int i = 0; i < size && modCount == expectedModCount; i++)
+            action.accept(values[i]);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    @Override
+    public LongStream longStream() {
+        return Arrays.stream(values, 0, size);
+    }
+
+    @Override
+    public void copyInto(long[] destination, int offset) {
+        System.arraycopy(values, 0, destination, offset, size);
+    }
+
+    @Override
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += values[i];
+        return sum;
+    }
+
+    /**
+     * Spliterator that is not fail-fast and covers values that are present when it's created.
+     */
+    @Override
+    public Spliterator.OfLong spliterator() {
+        return Spliterators.spliterator(values, 0, size, Spliterator.ORDERED);
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            modCount++;
+            grow(capacity);
+        }
+    }
+
+    public void trimToSize() {
+        if (size < values.length) {
+            modCount++;
+            values = size == 0 ? EMPTY : Arrays.copyOf(values, size);
+        }
+    }
+
+    @Override
+    public Long get(int index) {
+        return getLong(index);
+    }
+
+    @Override
+    public Long set(int index, Long value) {
+        return setLong(index, value);
+    }
+
+    @Override
+    public boolean add(Long value) {
+        addLong(value);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Long value) {
+        addLong(index, value);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Long> collection) {
+        ensureCapacity(size + collection.size());
+        return super.addAll(collection);
+    }
+
+    @Override
+    public Long remove(int index) {
+        return removeLongAt(index);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return o instanceof Long ? indexOfLong((Long)o) : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return o instanceof Long ? lastIndexOfLong((Long)o) : -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        modCount++;
+        size = 0;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        modCount++;
+        System.arraycopy(values, toIndex, values, fromIndex, size - toIndex);
+        size -= toIndex - fromIndex;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    private void grow(int minimumCapacity) {
+        if (minimumCapacity < 0 || minimumCapacity > MAXIMUM_CAPACITY)
+            throw new OutOfMemoryError("Required list capacity is too large: " + (minimumCapacity & 0xFFFFFFFFL));
+        int capacity = values.length == 0 ? DEFAULT_CAPACITY : values.length + (values.length >> 1);
+        if (capacity < 0 || capacity > MAXIMUM_CAPACITY)
+            capacity = MAXIMUM_CAPACITY;
+        values = Arrays.copyOf(values, Math.max(capacity, minimumCapacity));
+    }
+}
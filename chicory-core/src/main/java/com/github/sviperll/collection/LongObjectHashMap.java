@@ -0,0 +1,455 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.LongFunction;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Hash map with long keys.
+ * <p>
+ * Keys are stored unboxed in open addressing table with linear probing.
+ * Removal shifts following entries back instead of leaving tombstones.
+ * Zero key is used to mark free slots, so its value is kept separately.
+ * Null values are permitted.
+ * <p>
+ * LongObjectHashMap is also a {@code Map<Long, V>}, but
+ * methods with long key parameters should be used to avoid boxing.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+@ParametersAreNonnullByDefault
+public class LongObjectHashMap<V> extends AbstractMap<Long, V> {
+    public static <V> LongObjectHashMap<V> createInstance() {
+        return createInstance(0);
+    }
+
+    public static <V> LongObjectHashMap<V> createInstance(int expectedSize) {
+        return new LongObjectHashMap<>(PrimitiveHashing.tableSize(expectedSize));
+    }
+
+    private long[] keys;
+    /**
+     * Value of zero key is kept in the last element
+     */
+    private Object[] values;
+    private int mask;
+    private int maxFill;
+    private boolean containsZeroKey = false;
+    private int size = 0;
+    private int modCount = 0;
+    private Set<Map.Entry<Long, V>> entrySet = null;
+
+    private LongObjectHashMap(int tableSize) {
+        allocate(tableSize);
+    }
+
+    public boolean containsKey(long key) {
+        return key == 0 ? containsZeroKey : find(key) >= 0;
+    }
+
+    @Nullable
+    public V get(long key) {
+        return getOrDefault(key, null);
+    }
+
+    @Nullable
+    public V getOrDefault(long key, @Nullable V defaultValue) {
+        int position = key == 0 ? (containsZeroKey ? keys.length : -1) : find(key);
+        return position < 0 ? defaultValue : value(position);
+    }
+
+    /**
+     * @return previous value associated with key or null
+     */
+    @Nullable
+    public V put(long key, @Nullable V value) {
+        int position = insertionPosition(key);
+        if (position >= 0) {
+            V oldValue = value(position);
+            values[position] = value;
+            return oldValue;
+        } else {
+            insert(-position - 1, key, value);
+            return null;
+        }
+    }
+
+    public V computeIfAbsent(long key, LongFunction<? extends V> function) {
+        int position = insertionPosition(key);
+        if (position >= 0 && values[position] != null)
+            return value(position);
+        int expectedModCount = modCount;
+        V value = function.apply(key);
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+        if (value != null) {
+            if (position >= 0)
+                values[position] = value;
+            else
+                insert(-position - 1, key, value);
+        }
+        return value;
+    }
+
+    /**
+     * @return removed value or null
+     */
+    @Nullable
+    public V remove(long key) {
+        if (key == 0) {
+            if (!containsZeroKey)
+                return null;
+            V oldValue = value(keys.length);
+            values[keys.length] = null;
+            containsZeroKey = false;
+            size--;
+            modCount++;
+            return oldValue;
+        } else {
+            int position = find(key);
+            if (position < 0)
+                return null;
+            V oldValue = value(position);
+            shiftKeys(position, null);
+            size--;
+            modCount++;
+            return oldValue;
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Long && containsKey(((Long)key).longValue());
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Long ? get(((Long)key).longValue()) : null;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        return key instanceof Long ? getOrDefault(((Long)key).longValue(), defaultValue) : defaultValue;
+    }
+
+    @Override
+    public V put(Long key, V value) {
+        return put(key.longValue(), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Long ? remove(((Long)key).longValue()) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, 0);
+            Arrays.fill(values, null);
+            containsZeroKey = false;
+            size = 0;
+            modCount++;
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<Long, V>> entrySet() {
+        if (entrySet == null)
+            entrySet = new EntrySet();
+        return entrySet;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int position) {
+        return (V)values[position];
+    }
+
+    private int find(long key) {
+        long[] keys = this.keys;
+        int i = PrimitiveHashing.mix(key) & mask;
+        for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return position of key when it is present or (-insertionPosition - 1) when it's absent
+     */
+    private int insertionPosition(long key) {
+        if (key == 0)
+            return containsZeroKey ? keys.length : -keys.length - 1;
+        long[] keys = this.keys;
+        int i = PrimitiveHashing.mix(key) & mask;
+        for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key)
+                return i;
+        }
+        return -i - 1;
+    }
+
+    private void insert(int position, long key, @Nullable V value) {
+        values[position] = value;
+        if (key == 0)
+            containsZeroKey = true;
+        else {
+            keys[position] = key;
+            if (size + 1 >= maxFill)
+                rehash(PrimitiveHashing.grownTableSize(keys.length));
+        }
+        size++;
+        modCount++;
+    }
+
+    private void allocate(int tableSize) {
+        keys = new long[tableSize];
+        values = new Object[tableSize + 1];
+        mask = tableSize - 1;
+        maxFill = PrimitiveHashing.maxFill(tableSize);
+    }
+
+    private void rehash(int tableSize) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(tableSize);
+        values[tableSize] = oldValues[oldKeys.length];
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key != 0) {
+                int i = PrimitiveHashing.mix(key) & mask;
+                while (keys[i] != 0)
+                    i = (i + 1) & mask;
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Frees given position and moves following entries of the same probe sequence back.
+     * <p>
+     * Keys of entries that are moved from the beginning to the end of the table are added to wrapped list
+     * when it is given.
+     */
+    private void shiftKeys(int position, @Nullable LongArrayList wrapped) {
+        for (;;) {
+            int last = position;
+            position = (position + 1) & mask;
+            long key;
+            for (;;) {
+                key = keys[position];
+                if (key == 0) {
+                    keys[last] = 0;
+                    values[last] = null;
+                    return;
+                }
+                int slot = PrimitiveHashing.mix(key) & mask;
+                if (PrimitiveHashing.shouldShift(last, slot, position))
+                    break;
+                position = (position + 1) & mask;
+            }
+            if (wrapped != null && position < last)
+                wrapped.addLong(key);
+            keys[last] = key;
+            values[last] = values[position];
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<Long, V>> {
+        @Override
+        public Iterator<Map.Entry<Long, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>)o;
+            if (!(entry.getKey() instanceof Long))
+                return false;
+            long key = (Long)entry.getKey();
+            return containsKey(key) && Objects.equals(get(key), entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!contains(o))
+                return false;
+            LongObjectHashMap.this.remove(((Long)((Map.Entry<?, ?>)o).getKey()).longValue());
+            return true;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            LongObjectHashMap.this.clear();
+        }
+    }
+
+    /**
+     * Entry that writes through to the map.
+     * <p>
+     * Entry remains valid until map is structurally modified.
+     */
+    private class Entry implements Map.Entry<Long, V> {
+        private final long key;
+        private final int position;
+
+        Entry(long key, int position) {
+            this.key = key;
+            this.position = position;
+        }
+
+        @Override
+        public Long getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value(position);
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = value(position);
+            values[position] = value;
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> that = (Map.Entry<?, ?>)o;
+            return getKey().equals(that.getKey()) && Objects.equals(getValue(), that.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(key) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+
+    /**
+     * Iterator that traverses table from the end.
+     * <p>
+     * Removal can move entries that are not yet traversed from the beginning of the table
+     * behind current position. Such entries are remembered and returned after table is traversed.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<Long, V>> {
+        private int position = keys.length;
+        private int remaining = size;
+        private boolean mustReturnZeroKey = containsZeroKey;
+        private int last = -1;
+        private LongArrayList wrapped = null;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Map.Entry<Long, V> next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining <= 0)
+                throw new NoSuchElementException();
+            remaining--;
+            if (mustReturnZeroKey) {
+                mustReturnZeroKey = false;
+                last = keys.length;
+                return new Entry(0, last);
+            }
+            for (;;) {
+                position--;
+                if (position < 0) {
+                    last = Integer.MIN_VALUE;
+                    long key = wrapped.getLong(-position - 1);
+                    return new Entry(key, find(key));
+                }
+                if (keys[position] != 0) {
+                    last = position;
+                    return new Entry(keys[position], position);
+                }
+            }
+        }
+
+        @Override
+        public void remove() {
+            if (last == -1)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (last == keys.length) {
+                LongObjectHashMap.this.remove(0L);
+            } else if (last >= 0) {
+                if (wrapped == null)
+                    wrapped = LongArrayList.createInstance(2);
+                shiftKeys(last, wrapped);
+                size--;
+                modCount++;
+            } else {
+                LongObjectHashMap.this.remove(wrapped.getLong(-position - 1));
+            }
+            expectedModCount = modCount;
+            last = -1;
+        }
+    }
+}
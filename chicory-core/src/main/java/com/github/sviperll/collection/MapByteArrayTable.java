@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import com.github.sviperll.ByteArray;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Table that delegates to arbitrary map of {@link ByteArray} keys.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ * @param <V> type of values
+ */
+class MapByteArrayTable<V> implements ByteArrayTable<V> {
+    private final Map<ByteArray, V> map;
+
+    MapByteArrayTable(Map<ByteArray, V> map) {
+        this.map = map;
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean containsKey(ByteArray key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public boolean containsKey(byte[] key, int offset, int length) {
+        return map.containsKey(ByteArray.wrap(key, offset, length));
+    }
+
+    @Override
+    public V get(ByteArray key) {
+        return map.get(key);
+    }
+
+    @Override
+    public V get(byte[] key, int offset, int length) {
+        return map.get(ByteArray.wrap(key, offset, length));
+    }
+
+    @Override
+    public V put(ByteArray key, V value) {
+        return map.put(key, value);
+    }
+
+    @Override
+    public V put(byte[] key, int offset, int length, V value) {
+        return map.put(ByteArray.wrap(Arrays.copyOfRange(key, offset, offset + length)), value);
+    }
+
+    @Override
+    public V remove(ByteArray key) {
+        return map.remove(key);
+    }
+
+    @Override
+    public V remove(byte[] key, int offset, int length) {
+        return map.remove(ByteArray.wrap(key, offset, length));
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public Iterator<Map.Entry<ByteArray, V>> iterator() {
+        return map.entrySet().iterator();
+    }
+}
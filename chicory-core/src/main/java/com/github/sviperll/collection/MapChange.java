@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import com.github.sviperll.stream.SaturableConsuming;
+import com.github.sviperll.stream.Stream;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * Change of single map entry: key was put with new value or key was removed.
+ * <p>
+ * Sequence of changes between two states of a map can be replayed on a replica with
+ * {@link MapChange#applyTo(Map)}.
+ *
+ * @see com.github.sviperll.collection.snapshotable.Snapshot#changesBetween(Map, Map)
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public final class MapChange<K, V> {
+    public static <K, V> MapChange<K, V> put(K key, V value) {
+        return new MapChange<>(false, key, value);
+    }
+
+    public static <K, V> MapChange<K, V> remove(K key) {
+        return new MapChange<>(true, key, null);
+    }
+
+    /**
+     * Changes that turn the first map into the second one.
+     * <p>
+     * Structure sharing is used to skip unchanged entries of {@link HashTrieMap}s and
+     * of {@link AvlTreeMap}s with the same ordering, see {@link HashTrieMap#changes(HashTrieMap, HashTrieMap)}.
+     * Other maps are compared entry by entry each time the stream is consumed.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> Stream<MapChange<K, V>> changesBetween(Map<? extends K, ? extends V> from,
+                                                                Map<? extends K, ? extends V> to) {
+        if (from instanceof HashTrieMap && to instanceof HashTrieMap)
+            return HashTrieMap.changes((HashTrieMap<? extends K, ? extends V>)from,
+                                       (HashTrieMap<? extends K, ? extends V>)to);
+        else if (from instanceof AvlTreeMap && to instanceof AvlTreeMap
+                 && Objects.equals(((AvlTreeMap<?, ?>)from).comparator(), ((AvlTreeMap<?, ?>)to).comparator()))
+            return AvlTreeMap.changes((AvlTreeMap<K, ? extends V>)from, (AvlTreeMap<K, ? extends V>)to);
+        else
+            return Stream.of((SaturableConsuming<? super MapChange<K, V>> consumer) -> forEachChange(from, to, consumer));
+    }
+
+    private static <K, V> void forEachChange(Map<? extends K, ? extends V> from, Map<? extends K, ? extends V> to,
+                                     SaturableConsuming<? super MapChange<K, V>> consumer) {
+        for (Map.Entry<? extends K, ? extends V> entry: to.entrySet()) {
+            K key = entry.getKey();
+            V value = entry.getValue();
+            Object oldValue = from.get(key);
+            if (!Objects.equals(oldValue, value) || (oldValue == null && !from.containsKey(key))) {
+                if (!consumer.needsMore())
+                    return;
+                consumer.accept(put(key, value));
+            }
+        }
+        for (K key: from.keySet()) {
+            if (!to.containsKey(key)) {
+                if (!consumer.needsMore())
+                    return;
+                consumer.accept(remove(key));
+            }
+        }
+    }
+
+    private final boolean isRemoval;
+    private final K key;
+    private final V value;
+
+    private MapChange(boolean isRemoval, K key, V value) {
+        this.isRemoval = isRemoval;
+        this.key = key;
+        this.value = value;
+    }
+
+    public boolean isRemoval() {
+        return isRemoval;
+    }
+
+    public K key() {
+        return key;
+    }
+
+    /**
+     * New value of the key, always null for removals.
+     */
+    @Nullable
+    public V value() {
+        return value;
+    }
+
+    public void applyTo(Map<? super K, ? super V> map) {
+        if (isRemoval)
+            map.remove(key);
+        else
+            map.put(key, value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof MapChange))
+            return false;
+        MapChange<?, ?> that = (MapChange<?, ?>)o;
+        return isRemoval == that.isRemoval && Objects.equals(key, that.key) && Objects.equals(value, that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(isRemoval, key, value);
+    }
+
+    @Override
+    public String toString() {
+        return isRemoval ? "remove(" + key + ")" : "put(" + key + ", " + value + ")";
+    }
+}
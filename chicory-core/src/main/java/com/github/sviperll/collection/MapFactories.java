@@ -31,6 +31,7 @@ package com.github.sviperll.collection;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.SortedMap;
 import java.util.TreeMap;
 
 /**
@@ -39,31 +40,69 @@ import java.util.TreeMap;
  */
 public class MapFactories {
     @SuppressWarnings("rawtypes")
-    private static final MapFactory TREE_MAP = new TreeMapFactory();
+    private static final SortedMapFactory TREE_MAP = new TreeMapFactory();
 
     @SuppressWarnings("rawtypes")
     private static final MapFactory HASH_MAP = new HashMapFactory();
 
+    @SuppressWarnings("rawtypes")
+    private static final MapFactory HASH_TRIE_MAP = new HashTrieMapFactory();
+
+    @SuppressWarnings("rawtypes")
+    private static final SortedMapFactory AVL_TREE_MAP = new AvlTreeMapFactory();
+
     @SuppressWarnings("unchecked")
     public static <K extends Comparable<? super K>, V> MapFactory<K, V> treeMap() {
         return TREE_MAP;
     }
 
+    /**
+     * Factory of {@link TreeMap}s with natural ordering of keys.
+     * <p>
+     * The same as {@link #treeMap()}, but typed as SortedMapFactory.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<? super K>, V> SortedMapFactory<K, V> sortedTreeMap() {
+        return TREE_MAP;
+    }
+
     @SuppressWarnings("unchecked")
     public static <K, V> MapFactory<K, V> hashMap() {
         return HASH_MAP;
     }
+
+    /**
+     * Factory of {@link HashTrieMap}s.
+     * <p>
+     * Copies of HashTrieMap share structure with original map and take constant time,
+     * so SnapshotableMap created with this factory has constant time snapshots.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> MapFactory<K, V> hashTrieMap() {
+        return HASH_TRIE_MAP;
+    }
+
+    /**
+     * Factory of {@link AvlTreeMap}s with natural ordering of keys.
+     * <p>
+     * Copies of AvlTreeMap share structure with original map and take constant time,
+     * so sorted snapshotable maps and sets created with this factory have constant time snapshots.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<? super K>, V> SortedMapFactory<K, V> avlTreeMap() {
+        return AVL_TREE_MAP;
+    }
     private MapFactories() {
     }
 
-    private static class TreeMapFactory<K extends Comparable<? super K>, V> implements MapFactory<K, V> {
+    private static class TreeMapFactory<K extends Comparable<? super K>, V> implements SortedMapFactory<K, V> {
         @Override
-        public Map<K, V> createInitialMap() {
+        public SortedMap<K, V> createInitialMap() {
             return new TreeMap<>();
         }
 
         @Override
-        public Map<K, V> createCopyOf(Map<? extends K, ? extends V> values) {
+        public SortedMap<K, V> createCopyOf(Map<? extends K, ? extends V> values) {
             return new TreeMap<>(values);
         }
     }
@@ -78,4 +117,26 @@ public class MapFactories {
             return new HashMap<>(values);
         }
     }
+    private static class HashTrieMapFactory<K, V> implements MapFactory<K, V> {
+        @Override
+        public Map<K, V> createInitialMap() {
+            return HashTrieMap.createInstance();
+        }
+
+        @Override
+        public Map<K, V> createCopyOf(Map<? extends K, ? extends V> values) {
+            return HashTrieMap.copyOf(values);
+        }
+    }
+    private static class AvlTreeMapFactory<K extends Comparable<? super K>, V> implements SortedMapFactory<K, V> {
+        @Override
+        public SortedMap<K, V> createInitialMap() {
+            return AvlTreeMap.createInstance();
+        }
+
+        @Override
+        public SortedMap<K, V> createCopyOf(Map<? extends K, ? extends V> values) {
+            return AvlTreeMap.copyOf(values);
+        }
+    }
 }
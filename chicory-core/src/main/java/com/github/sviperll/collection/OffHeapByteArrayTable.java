@@ -0,0 +1,494 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import com.github.sviperll.ByteArray;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Hash table that keeps both keys and values in direct memory.
+ * <p>
+ * Entries are serialized as records into direct {@link ByteBuffer} slabs.
+ * Record is key length, value length, key bytes and value bytes.
+ * Heap holds only open addressing index: hash code and record reference of every slot,
+ * so heap footprint does not depend on size of keys and values and
+ * there is no object per entry for garbage collector to trace.
+ * <p>
+ * Values are copied into heap when they are read.
+ * Value of the same length is overwritten in place, otherwise new record is appended and
+ * old record becomes garbage.
+ * Live records are moved to fresh slabs when garbage exceeds live data.
+ * <p>
+ * Lookups read slabs with absolute reads and don't modify table,
+ * so like {@link java.util.HashMap} table can be read by several threads at once,
+ * but any modification requires external synchronization.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+class OffHeapByteArrayTable implements ByteArrayTable<ByteArray> {
+    private static final long FREE = -1;
+    private static final long REMOVED = -2;
+    private static final int MINIMUM_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final int HEADER_SIZE = 8;
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < MAXIMUM_CAPACITY && maximumLoad(capacity) < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static void checkRegion(byte[] key, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > key.length - length)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", array length: " + key.length);
+    }
+
+    /**
+     * Copies bytes from slab to heap without moving slab's position.
+     */
+    private static byte[] read(ByteBuffer slab, int position, int length) {
+        byte[] result = new byte[length];
+        ByteBuffer view = slab.duplicate();
+        view.position(position);
+        view.get(result);
+        return result;
+    }
+
+    private static int maximumLoad(int capacity) {
+        return capacity / 4 * 3;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static long reference(int slab, int offset) {
+        return ((long)slab << 32) | offset;
+    }
+
+    private static int slabOf(long reference) {
+        return (int)(reference >>> 32);
+    }
+
+    private static int offsetOf(long reference) {
+        return (int)reference;
+    }
+
+    private final int slabSize;
+    private int[] hashes;
+    private long[] references;
+    private int mask;
+    private int size = 0;
+    private int removed = 0;
+    private List<ByteBuffer> slabs = new ArrayList<>();
+    private int slabPosition = 0;
+    private long liveBytes = 0;
+    private long garbageBytes = 0;
+    private byte[] scratch = new byte[64];
+    private int modCount = 0;
+
+    OffHeapByteArrayTable(int expectedSize, int slabSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("expectedSize should not be negative: " + expectedSize);
+        if (slabSize <= HEADER_SIZE)
+            throw new IllegalArgumentException("slabSize should be greater than " + HEADER_SIZE + ": " + slabSize);
+        this.slabSize = slabSize;
+        allocateIndex(capacityFor(expectedSize));
+    }
+
+    private void allocateIndex(int capacity) {
+        hashes = new int[capacity];
+        references = new long[capacity];
+        Arrays.fill(references, FREE);
+        mask = capacity - 1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(ByteArray key) {
+        return find(key, null, 0, key.length(), key.hashCode()) >= 0;
+    }
+
+    @Override
+    public boolean containsKey(byte[] key, int offset, int length) {
+        checkRegion(key, offset, length);
+        return find(null, key, offset, length, ByteArray.hashCode(key, offset, length)) >= 0;
+    }
+
+    @Override
+    public ByteArray get(ByteArray key) {
+        return valueAt(find(key, null, 0, key.length(), key.hashCode()));
+    }
+
+    @Override
+    public ByteArray get(byte[] key, int offset, int length) {
+        checkRegion(key, offset, length);
+        return valueAt(find(null, key, offset, length, ByteArray.hashCode(key, offset, length)));
+    }
+
+    @Override
+    public ByteArray put(ByteArray key, ByteArray value) {
+        Objects.requireNonNull(value, "Off-heap table doesn't support null values");
+        return put(key, null, 0, key.length(), key.hashCode(), value);
+    }
+
+    @Override
+    public ByteArray put(byte[] key, int offset, int length, ByteArray value) {
+        checkRegion(key, offset, length);
+        Objects.requireNonNull(value, "Off-heap table doesn't support null values");
+        return put(null, key, offset, length, ByteArray.hashCode(key, offset, length), value);
+    }
+
+    @Override
+    public ByteArray remove(ByteArray key) {
+        return removeSlot(find(key, null, 0, key.length(), key.hashCode()));
+    }
+
+    @Override
+    public ByteArray remove(byte[] key, int offset, int length) {
+        checkRegion(key, offset, length);
+        return removeSlot(find(null, key, offset, length, ByteArray.hashCode(key, offset, length)));
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(references, FREE);
+        size = 0;
+        removed = 0;
+        slabs = new ArrayList<>();
+        slabPosition = 0;
+        liveBytes = 0;
+        garbageBytes = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<Map.Entry<ByteArray, ByteArray>> iterator() {
+        return new TableIterator();
+    }
+
+    private int find(ByteArray key, byte[] bytes, int offset, int length, int hash) {
+        int i = mix(hash) & mask;
+        for (;;) {
+            long reference = references[i];
+            if (reference == FREE)
+                return -1;
+            if (reference != REMOVED && hashes[i] == hash && matches(reference, key, bytes, offset, length))
+                return i;
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Key is given either as ByteArray or as region of byte array when ByteArray is null.
+     */
+    private boolean matches(long reference, ByteArray key, byte[] bytes, int offset, int length) {
+        ByteBuffer slab = slabs.get(slabOf(reference));
+        int recordOffset = offsetOf(reference);
+        int keyLength = slab.getInt(recordOffset);
+        if (keyLength != length)
+            return false;
+        int keyPosition = recordOffset + HEADER_SIZE;
+        for (int i = 0; i < length; i++) {
+            byte b = key != null ? key.byteAt(i) : bytes[offset + i];
+            if (slab.get(keyPosition + i) != b)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copies bytes from slab into scratch buffer.
+     * <p>
+     * Scratch buffer is shared, so this method should be used by modifications only.
+     */
+    private byte[] readIntoScratch(ByteBuffer slab, int position, int length) {
+        if (scratch.length < length)
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        slab.position(position);
+        slab.get(scratch, 0, length);
+        return scratch;
+    }
+
+    private void put(ByteBuffer slab, ByteArray bytes) {
+        int length = bytes.length();
+        if (scratch.length < length)
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        bytes.copyTo(scratch, 0);
+        slab.put(scratch, 0, length);
+    }
+
+    private ByteArray valueAt(int slot) {
+        if (slot < 0)
+            return null;
+        long reference = references[slot];
+        ByteBuffer slab = slabs.get(slabOf(reference));
+        int recordOffset = offsetOf(reference);
+        int keyLength = slab.getInt(recordOffset);
+        int valueLength = slab.getInt(recordOffset + 4);
+        return ByteArray.wrap(read(slab, recordOffset + HEADER_SIZE + keyLength, valueLength));
+    }
+
+    private ByteArray keyAt(int slot) {
+        long reference = references[slot];
+        ByteBuffer slab = slabs.get(slabOf(reference));
+        int recordOffset = offsetOf(reference);
+        return ByteArray.wrap(read(slab, recordOffset + HEADER_SIZE, slab.getInt(recordOffset)));
+    }
+
+    private ByteArray put(ByteArray key, byte[] bytes, int offset, int length, int hash, ByteArray value) {
+        int i = mix(hash) & mask;
+        int firstRemoved = -1;
+        for (;;) {
+            long reference = references[i];
+            if (reference == FREE)
+                break;
+            if (reference == REMOVED) {
+                if (firstRemoved < 0)
+                    firstRemoved = i;
+            } else if (hashes[i] == hash && matches(reference, key, bytes, offset, length)) {
+                ByteArray result = valueAt(i);
+                replaceValue(i, value);
+                return result;
+            }
+            i = (i + 1) & mask;
+        }
+        int slot = i;
+        if (firstRemoved >= 0) {
+            slot = firstRemoved;
+            removed--;
+        }
+        ByteBuffer slab = reserve(length, value.length());
+        int recordOffset = slab.position();
+        slab.putInt(length);
+        slab.putInt(value.length());
+        if (key != null)
+            put(slab, key);
+        else
+            slab.put(bytes, offset, length);
+        put(slab, value);
+        hashes[slot] = hash;
+        references[slot] = reference(slabs.size() - 1, recordOffset);
+        size++;
+        modCount++;
+        if (size + removed > maximumLoad(references.length))
+            rehash();
+        return null;
+    }
+
+    private void replaceValue(int slot, ByteArray value) {
+        long reference = references[slot];
+        ByteBuffer slab = slabs.get(slabOf(reference));
+        int recordOffset = offsetOf(reference);
+        int keyLength = slab.getInt(recordOffset);
+        int valueLength = slab.getInt(recordOffset + 4);
+        if (valueLength == value.length()) {
+            slab.position(recordOffset + HEADER_SIZE + keyLength);
+            put(slab, value);
+        } else {
+            byte[] key = read(slab, recordOffset + HEADER_SIZE, keyLength);
+            discardRecord(keyLength, valueLength);
+            // Old record should not be moved if slabs are compacted
+            references[slot] = REMOVED;
+            ByteBuffer newSlab = reserve(keyLength, value.length());
+            int newRecordOffset = newSlab.position();
+            newSlab.putInt(keyLength);
+            newSlab.putInt(value.length());
+            newSlab.put(key);
+            put(newSlab, value);
+            references[slot] = reference(slabs.size() - 1, newRecordOffset);
+        }
+    }
+
+    private ByteArray removeSlot(int slot) {
+        if (slot < 0)
+            return null;
+        ByteArray result = valueAt(slot);
+        long reference = references[slot];
+        ByteBuffer slab = slabs.get(slabOf(reference));
+        int recordOffset = offsetOf(reference);
+        discardRecord(slab.getInt(recordOffset), slab.getInt(recordOffset + 4));
+        references[slot] = REMOVED;
+        size--;
+        removed++;
+        modCount++;
+        return result;
+    }
+
+    private void discardRecord(int keyLength, int valueLength) {
+        long recordSize = HEADER_SIZE + (long)keyLength + valueLength;
+        liveBytes -= recordSize;
+        garbageBytes += recordSize;
+    }
+
+    /**
+     * Returns slab positioned where new record of given size should be written.
+     * <p>
+     * Live records may be moved by this method, so it should be called before record's slot is filled.
+     */
+    private ByteBuffer reserve(int keyLength, int valueLength) {
+        long recordSize = HEADER_SIZE + (long)keyLength + valueLength;
+        if (recordSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Entry is too large: " + recordSize + " bytes");
+        if (garbageBytes > liveBytes && garbageBytes > slabSize)
+            compact();
+        ByteBuffer slab = slabs.isEmpty() ? null : slabs.get(slabs.size() - 1);
+        if (slab == null || slab.capacity() - slabPosition < recordSize) {
+            slab = ByteBuffer.allocateDirect(Math.max(slabSize, (int)recordSize));
+            slabs.add(slab);
+            slabPosition = 0;
+        }
+        slab.position(slabPosition);
+        slabPosition += (int)recordSize;
+        liveBytes += recordSize;
+        return slab;
+    }
+
+    /**
+     * Moves live records to fresh slabs, so that old slabs can be reclaimed.
+     */
+    private void compact() {
+        List<ByteBuffer> oldSlabs = slabs;
+        slabs = new ArrayList<>();
+        slabPosition = 0;
+        liveBytes = 0;
+        garbageBytes = 0;
+        for (int i = 0; i < references.length; i++) {
+            long reference = references[i];
+            if (reference >= 0) {
+                ByteBuffer oldSlab = oldSlabs.get(slabOf(reference));
+                int recordOffset = offsetOf(reference);
+                int keyLength = oldSlab.getInt(recordOffset);
+                int valueLength = oldSlab.getInt(recordOffset + 4);
+                int recordSize = HEADER_SIZE + keyLength + valueLength;
+                byte[] record = readIntoScratch(oldSlab, recordOffset, recordSize);
+                ByteBuffer slab = reserve(keyLength, valueLength);
+                int newRecordOffset = slab.position();
+                slab.put(record, 0, recordSize);
+                references[i] = reference(slabs.size() - 1, newRecordOffset);
+            }
+        }
+    }
+
+    private void rehash() {
+        int capacity = references.length;
+        if (size > maximumLoad(capacity) / 2) {
+            if (capacity == MAXIMUM_CAPACITY)
+                throw new IllegalStateException("Table is full");
+            capacity <<= 1;
+        }
+        int[] oldHashes = hashes;
+        long[] oldReferences = references;
+        allocateIndex(capacity);
+        for (int j = 0; j < oldReferences.length; j++) {
+            if (oldReferences[j] >= 0) {
+                int i = mix(oldHashes[j]) & mask;
+                while (references[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                hashes[i] = oldHashes[j];
+                references[i] = oldReferences[j];
+            }
+        }
+        removed = 0;
+    }
+
+    private class TableIterator implements Iterator<Map.Entry<ByteArray, ByteArray>> {
+        private int expectedModCount = modCount;
+        private int next = 0;
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            while (next < references.length && references[next] < 0) {
+                next++;
+            }
+            return next < references.length;
+        }
+
+        @Override
+        public Map.Entry<ByteArray, ByteArray> next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            last = next++;
+            return new TableEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeSlot(last);
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Entry doesn't remember its slot, since slots are moved by rehash.
+     * Key is looked up again when value is set, entry of removed key is just detached from table.
+     */
+    @SuppressWarnings("serial")
+    private class TableEntry extends AbstractMap.SimpleEntry<ByteArray, ByteArray> {
+        TableEntry(int slot) {
+            super(keyAt(slot), valueAt(slot));
+        }
+
+        @Override
+        public ByteArray setValue(ByteArray value) {
+            Objects.requireNonNull(value, "Off-heap table doesn't support null values");
+            ByteArray key = getKey();
+            int slot = find(key, null, 0, key.length(), key.hashCode());
+            if (slot >= 0)
+                replaceValue(slot, value);
+            return super.setValue(value);
+        }
+    }
+}
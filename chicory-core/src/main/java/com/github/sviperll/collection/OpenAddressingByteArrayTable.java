@@ -0,0 +1,393 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import com.github.sviperll.ByteArray;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Hash table with open addressing and keys packed into single byte array.
+ * <p>
+ * Table keeps no object per entry besides the value itself.
+ * Key bytes are appended to the key arena and slots refer to them by offset and length.
+ * Slots are probed linearly, removed slots are marked and reclaimed when table is rehashed.
+ * Lookups by region of byte array allocate nothing.
+ * <p>
+ * Arena bytes are never overwritten: when arena is exhausted or compacted, new arena is allocated.
+ * This way keys returned by iterator are views of arena that stay valid after table is modified.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ * @param <V> type of values
+ */
+class OpenAddressingByteArrayTable<V> implements ByteArrayTable<V> {
+    private static final int FREE = -1;
+    private static final int REMOVED = -2;
+    private static final int MINIMUM_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final int MAXIMUM_ARENA_SIZE = Integer.MAX_VALUE - 8;
+    private static final int INITIAL_ARENA_SIZE_PER_SLOT = 8;
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < MAXIMUM_CAPACITY && maximumLoad(capacity) < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static void checkRegion(byte[] key, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > key.length - length)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", array length: " + key.length);
+    }
+
+    private static int maximumLoad(int capacity) {
+        return capacity / 4 * 3;
+    }
+
+    /**
+     * Spreads bits of polynomial hash code, so that neighbouring keys do not cluster in neighbouring slots.
+     */
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int[] hashes;
+    private int[] offsets;
+    private int[] lengths;
+    private Object[] values;
+    private int mask;
+    private int size = 0;
+    private int removed = 0;
+    private byte[] arena;
+    private int arenaSize = 0;
+    private int arenaGarbage = 0;
+    private int modCount = 0;
+
+    OpenAddressingByteArrayTable(int expectedSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("expectedSize should not be negative: " + expectedSize);
+        int capacity = capacityFor(expectedSize);
+        allocateSlots(capacity);
+        arena = new byte[capacity * INITIAL_ARENA_SIZE_PER_SLOT];
+    }
+
+    private void allocateSlots(int capacity) {
+        hashes = new int[capacity];
+        offsets = new int[capacity];
+        lengths = new int[capacity];
+        values = new Object[capacity];
+        Arrays.fill(lengths, FREE);
+        mask = capacity - 1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(ByteArray key) {
+        return find(key, null, 0, key.length(), key.hashCode()) >= 0;
+    }
+
+    @Override
+    public boolean containsKey(byte[] key, int offset, int length) {
+        checkRegion(key, offset, length);
+        return find(null, key, offset, length, ByteArray.hashCode(key, offset, length)) >= 0;
+    }
+
+    @Override
+    public V get(ByteArray key) {
+        return valueAt(find(key, null, 0, key.length(), key.hashCode()));
+    }
+
+    @Override
+    public V get(byte[] key, int offset, int length) {
+        checkRegion(key, offset, length);
+        return valueAt(find(null, key, offset, length, ByteArray.hashCode(key, offset, length)));
+    }
+
+    @Override
+    public V put(ByteArray key, V value) {
+        return put(key, null, 0, key.length(), key.hashCode(), value);
+    }
+
+    @Override
+    public V put(byte[] key, int offset, int length, V value) {
+        checkRegion(key, offset, length);
+        return put(null, key, offset, length, ByteArray.hashCode(key, offset, length), value);
+    }
+
+    @Override
+    public V remove(ByteArray key) {
+        return removeSlot(find(key, null, 0, key.length(), key.hashCode()));
+    }
+
+    @Override
+    public V remove(byte[] key, int offset, int length) {
+        checkRegion(key, offset, length);
+        return removeSlot(find(null, key, offset, length, ByteArray.hashCode(key, offset, length)));
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(lengths, FREE);
+        Arrays.fill(values, null);
+        size = 0;
+        removed = 0;
+        // Old arena may still be referenced by keys returned earlier
+        arena = new byte[Math.min(arena.length, lengths.length * INITIAL_ARENA_SIZE_PER_SLOT)];
+        arenaSize = 0;
+        arenaGarbage = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<Map.Entry<ByteArray, V>> iterator() {
+        return new TableIterator();
+    }
+
+    /**
+     * Key is given either as ByteArray or as region of byte array when ByteArray is null.
+     *
+     * @return slot index or -1 if key is not found
+     */
+    private int find(ByteArray key, byte[] bytes, int offset, int length, int hash) {
+        int i = mix(hash) & mask;
+        for (;;) {
+            int slotLength = lengths[i];
+            if (slotLength == FREE)
+                return -1;
+            if (slotLength == length && hashes[i] == hash && matches(i, key, bytes, offset, length))
+                return i;
+            i = (i + 1) & mask;
+        }
+    }
+
+    private boolean matches(int slot, ByteArray key, byte[] bytes, int offset, int length) {
+        if (key != null)
+            return key.contentEquals(arena, offsets[slot], lengths[slot]);
+        else
+            return ByteArray.equals(arena, offsets[slot], lengths[slot], bytes, offset, length);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int slot) {
+        return slot < 0 ? null : (V)values[slot];
+    }
+
+    private V put(ByteArray key, byte[] bytes, int offset, int length, int hash, V value) {
+        int i = mix(hash) & mask;
+        int firstRemoved = -1;
+        for (;;) {
+            int slotLength = lengths[i];
+            if (slotLength == FREE)
+                break;
+            if (slotLength == REMOVED) {
+                if (firstRemoved < 0)
+                    firstRemoved = i;
+            } else if (slotLength == length && hashes[i] == hash && matches(i, key, bytes, offset, length)) {
+                V result = valueAt(i);
+                values[i] = value;
+                return result;
+            }
+            i = (i + 1) & mask;
+        }
+        int slot = i;
+        if (firstRemoved >= 0) {
+            slot = firstRemoved;
+            removed--;
+        }
+        int keyOffset = appendKey(key, bytes, offset, length);
+        hashes[slot] = hash;
+        offsets[slot] = keyOffset;
+        lengths[slot] = length;
+        values[slot] = value;
+        size++;
+        modCount++;
+        if (size + removed > maximumLoad(lengths.length))
+            rehash();
+        return null;
+    }
+
+    private V removeSlot(int slot) {
+        if (slot < 0)
+            return null;
+        V result = valueAt(slot);
+        arenaGarbage += lengths[slot];
+        lengths[slot] = REMOVED;
+        values[slot] = null;
+        size--;
+        removed++;
+        modCount++;
+        return result;
+    }
+
+    /**
+     * Grows table when it is mostly filled with live entries and
+     * just reclaims removed slots otherwise.
+     */
+    private void rehash() {
+        int capacity = lengths.length;
+        if (size > maximumLoad(capacity) / 2) {
+            if (capacity == MAXIMUM_CAPACITY)
+                throw new IllegalStateException("Table is full");
+            capacity <<= 1;
+        }
+        int[] oldHashes = hashes;
+        int[] oldOffsets = offsets;
+        int[] oldLengths = lengths;
+        Object[] oldValues = values;
+        allocateSlots(capacity);
+        for (int j = 0; j < oldLengths.length; j++) {
+            if (oldLengths[j] >= 0) {
+                int i = mix(oldHashes[j]) & mask;
+                while (lengths[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                hashes[i] = oldHashes[j];
+                offsets[i] = oldOffsets[j];
+                lengths[i] = oldLengths[j];
+                values[i] = oldValues[j];
+            }
+        }
+        removed = 0;
+    }
+
+    /**
+     * Copies key to the arena.
+     * <p>
+     * Should be called before slot of the key is filled, since arena may be compacted.
+     *
+     * @return offset of the key in the arena
+     */
+    private int appendKey(ByteArray key, byte[] bytes, int offset, int length) {
+        if (arena.length - arenaSize < length)
+            reallocateArena(length);
+        int result = arenaSize;
+        if (key != null)
+            key.copyTo(arena, result);
+        else
+            System.arraycopy(bytes, offset, arena, result, length);
+        arenaSize += length;
+        return result;
+    }
+
+    private void reallocateArena(int additionalSize) {
+        long liveSize = (long)arenaSize - arenaGarbage;
+        boolean shouldCompact = arenaGarbage > liveSize;
+        long requiredSize = (shouldCompact ? liveSize : arenaSize) + additionalSize;
+        if (requiredSize > MAXIMUM_ARENA_SIZE) {
+            if (shouldCompact || liveSize + additionalSize > MAXIMUM_ARENA_SIZE)
+                throw new OutOfMemoryError("Keys exceed maximum array size");
+            shouldCompact = true;
+            requiredSize = liveSize + additionalSize;
+        }
+        int newSize = (int)Math.min(MAXIMUM_ARENA_SIZE, Math.max(requiredSize, (long)arena.length * 2));
+        if (!shouldCompact)
+            arena = Arrays.copyOf(arena, newSize);
+        else {
+            byte[] compacted = new byte[newSize];
+            int compactedSize = 0;
+            for (int i = 0; i < lengths.length; i++) {
+                int length = lengths[i];
+                if (length >= 0) {
+                    System.arraycopy(arena, offsets[i], compacted, compactedSize, length);
+                    offsets[i] = compactedSize;
+                    compactedSize += length;
+                }
+            }
+            arena = compacted;
+            arenaSize = compactedSize;
+            arenaGarbage = 0;
+        }
+    }
+
+    private class TableIterator implements Iterator<Map.Entry<ByteArray, V>> {
+        private int expectedModCount = modCount;
+        private int next = 0;
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            while (next < lengths.length && lengths[next] < 0) {
+                next++;
+            }
+            return next < lengths.length;
+        }
+
+        @Override
+        public Map.Entry<ByteArray, V> next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            last = next++;
+            return new TableEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeSlot(last);
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Entry doesn't remember its slot, since slots are moved by rehash.
+     * Key is looked up again when value is set, entry of removed key is just detached from table.
+     */
+    @SuppressWarnings("serial")
+    private class TableEntry extends AbstractMap.SimpleEntry<ByteArray, V> {
+        TableEntry(int slot) {
+            super(ByteArray.wrap(arena, offsets[slot], lengths[slot]), valueAt(slot));
+        }
+
+        @Override
+        public V setValue(V value) {
+            ByteArray key = getKey();
+            int slot = find(key, null, 0, key.length(), key.hashCode());
+            if (slot >= 0)
+                values[slot] = value;
+            return super.setValue(value);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Allocator that recycles freed buffers.
+ * <p>
+ * Buffer sizes are rounded up to power of two size classes, so
+ * array of allocated buffer may be longer than requested size.
+ * {@link ByteBufferAllocator.ByteBuffer#size()} of allocated buffer is always the requested size.
+ * Allocators of different sizes that share the same pool are obtained with
+ * {@link PoolingByteBufferAllocator#withSize(int)}.
+ * <p>
+ * Freed arrays are cached in a small per-thread cache first and
+ * then in shared lock-free free-list of their size class.
+ * Shared free-lists retain at most maxRetainedBytes, arrays beyond this limit are left for garbage collector.
+ * Buffers larger than 16 MiB are never pooled.
+ * <p>
+ * Recycled arrays are not cleared.
+ * Buffer should not be used after it is freed, ByteBuffer throws IllegalStateException
+ * when it is accessed or freed after it was freed.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class PoolingByteBufferAllocator implements ByteBufferAllocator {
+    private static final int MINIMUM_SIZE_CLASS = 6;
+    private static final int MAXIMUM_SIZE_CLASS = 24;
+    private static final int MAXIMUM_THREAD_CACHED_SIZE_CLASS = 16;
+    private static final int THREAD_CACHE_CAPACITY = 4;
+    private static final int MAXIMUM_SHARED_CAPACITY = 1024;
+
+    /**
+     * Creates allocator of buffers of given size with its own pool.
+     */
+    public static PoolingByteBufferAllocator createInstance(int size, long maxRetainedBytes) {
+        if (maxRetainedBytes < 0)
+            throw new IllegalArgumentException("maxRetainedBytes should not be negative: " + maxRetainedBytes);
+        return new PoolingByteBufferAllocator(new Pool(maxRetainedBytes), size);
+    }
+
+    private static int sizeClass(int size) {
+        if (size < 0)
+            throw new IllegalArgumentException("size should not be negative: " + size);
+        if (size > 1 << 30)
+            throw new IllegalArgumentException("size is too large: " + size);
+        if (size <= 1 << MINIMUM_SIZE_CLASS)
+            return MINIMUM_SIZE_CLASS;
+        return 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    private final Pool pool;
+    private final int size;
+    private final int sizeClass;
+
+    private PoolingByteBufferAllocator(Pool pool, int size) {
+        this.pool = pool;
+        this.size = size;
+        this.sizeClass = sizeClass(size);
+    }
+
+    /**
+     * Allocator of buffers of another size that shares pool with this allocator.
+     */
+    public PoolingByteBufferAllocator withSize(int size) {
+        return new PoolingByteBufferAllocator(pool, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of bytes currently retained in shared free-lists.
+     * <p>
+     * Per-thread caches are not included.
+     */
+    public long retainedBytes() {
+        return pool.retainedBytes.get();
+    }
+
+    @Override
+    public ByteBuffer allocateByteBuffer() {
+        return new PooledByteBuffer(pool, sizeClass, pool.allocate(sizeClass, size), size);
+    }
+
+    private static class Pool {
+        private final long maxRetainedBytes;
+        private final AtomicLong retainedBytes = new AtomicLong(0);
+        private final SharedFreeList[] freeLists = new SharedFreeList[MAXIMUM_SIZE_CLASS + 1];
+        private final ThreadLocal<ThreadCache> threadCache = ThreadLocal.withInitial(ThreadCache::new);
+
+        Pool(long maxRetainedBytes) {
+            this.maxRetainedBytes = maxRetainedBytes;
+            for (int sizeClass = MINIMUM_SIZE_CLASS; sizeClass <= MAXIMUM_SIZE_CLASS; sizeClass++) {
+                long capacity = Math.min(MAXIMUM_SHARED_CAPACITY, maxRetainedBytes >> sizeClass);
+                freeLists[sizeClass] = new SharedFreeList((int)capacity);
+            }
+        }
+
+        byte[] allocate(int sizeClass, int size) {
+            if (sizeClass > MAXIMUM_SIZE_CLASS)
+                return new byte[size];
+            else {
+                byte[] array = null;
+                if (sizeClass <= MAXIMUM_THREAD_CACHED_SIZE_CLASS)
+                    array = threadCache.get().poll(sizeClass);
+                if (array == null) {
+                    array = freeLists[sizeClass].poll();
+                    if (array != null)
+                        retainedBytes.addAndGet(-array.length);
+                }
+                return array != null ? array : new byte[1 << sizeClass];
+            }
+        }
+
+        void free(int sizeClass, byte[] array) {
+            if (sizeClass > MAXIMUM_SIZE_CLASS)
+                return;
+            if (sizeClass <= MAXIMUM_THREAD_CACHED_SIZE_CLASS && threadCache.get().offer(sizeClass, array))
+                return;
+            if (retainedBytes.addAndGet(array.length) > maxRetainedBytes || !freeLists[sizeClass].offer(array))
+                retainedBytes.addAndGet(-array.length);
+        }
+    }
+
+    /**
+     * Bounded lock-free free-list.
+     * <p>
+     * Arrays are kept in slots that are exchanged atomically,
+     * so that free-list needs no nodes and is not subject to ABA problem.
+     * Search starts from random slot to spread contention.
+     */
+    private static class SharedFreeList {
+        private final AtomicReferenceArray<byte[]> slots;
+        private final AtomicInteger count = new AtomicInteger(0);
+
+        SharedFreeList(int capacity) {
+            slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        byte[] poll() {
+            int length = slots.length();
+            if (count.get() <= 0)
+                return null;
+            int start = ThreadLocalRandom.current().nextInt(length);
+            for (int i = 0; i < length; i++) {
+                int index = (start + i) % length;
+                if (slots.get(index) != null) {
+                    byte[] array = slots.getAndSet(index, null);
+                    if (array != null) {
+                        count.decrementAndGet();
+                        return array;
+                    }
+                }
+            }
+            return null;
+        }
+
+        boolean offer(byte[] array) {
+            int length = slots.length();
+            if (count.get() >= length)
+                return false;
+            int start = ThreadLocalRandom.current().nextInt(length);
+            for (int i = 0; i < length; i++) {
+                int index = (start + i) % length;
+                if (slots.get(index) == null && slots.compareAndSet(index, null, array)) {
+                    count.incrementAndGet();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class ThreadCache {
+        private final byte[][][] arrays = new byte[MAXIMUM_THREAD_CACHED_SIZE_CLASS + 1][][];
+        private final int[] counts = new int[MAXIMUM_THREAD_CACHED_SIZE_CLASS + 1];
+
+        ThreadCache() {
+            for (int sizeClass = MINIMUM_SIZE_CLASS; sizeClass <= MAXIMUM_THREAD_CACHED_SIZE_CLASS; sizeClass++) {
+                arrays[sizeClass] = new byte[THREAD_CACHE_CAPACITY][];
+            }
+        }
+
+        byte[] poll(int sizeClass) {
+            int count = counts[sizeClass];
+            if (count == 0)
+                return null;
+            count--;
+            byte[] array = arrays[sizeClass][count];
+            arrays[sizeClass][count] = null;
+            counts[sizeClass] = count;
+            return array;
+        }
+
+        boolean offer(int sizeClass, byte[] array) {
+            int count = counts[sizeClass];
+            if (count == THREAD_CACHE_CAPACITY)
+                return false;
+            arrays[sizeClass][count] = array;
+            counts[sizeClass] = count + 1;
+            return true;
+        }
+    }
+
+    private static class PooledByteBuffer implements ByteBuffer {
+        private final Pool pool;
+        private final int sizeClass;
+        private final int size;
+        private byte[] array;
+
+        PooledByteBuffer(Pool pool, int sizeClass, byte[] array, int size) {
+            this.pool = pool;
+            this.sizeClass = sizeClass;
+            this.array = array;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public java.nio.ByteBuffer nioBuffer() {
+            return java.nio.ByteBuffer.wrap(array(), 0, size).slice();
+        }
+
+        @Override
+        public byte[] array() {
+            if (array == null)
+                throw new IllegalStateException("Buffer is already freed");
+            return array;
+        }
+
+        @Override
+        public void free() {
+            byte[] freed = array();
+            array = null;
+            pool.free(sizeClass, freed);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+/**
+ * Hashing utilities shared by primitive open addressing hash tables.
+ * <p>
+ * Tables have power of two sizes, are filled up to 3/4 and use linear probing.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+class PrimitiveHashing {
+    static final int MINIMUM_TABLE_SIZE = 4;
+    static final int MAXIMUM_TABLE_SIZE = 1 << 30;
+
+    static int tableSize(int expectedSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("expectedSize should not be negative: " + expectedSize);
+        long required = (expectedSize * 4L + 2) / 3 + 1;
+        if (required > MAXIMUM_TABLE_SIZE)
+            throw new IllegalArgumentException("expectedSize is too large: " + expectedSize);
+        int size = MINIMUM_TABLE_SIZE;
+        while (size < required)
+            size <<= 1;
+        return size;
+    }
+
+    static int maxFill(int tableSize) {
+        return Math.min(tableSize - 1, tableSize - (tableSize >>> 2));
+    }
+
+    static int grownTableSize(int tableSize) {
+        if (tableSize >= MAXIMUM_TABLE_SIZE)
+            throw new IllegalStateException("Hash table is too large");
+        return tableSize << 1;
+    }
+
+    static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        return (int)(hash ^ (hash >>> 16));
+    }
+
+    /**
+     * Tells whether entry that is stored at position and whose home slot is slot
+     * should be moved into freed position last during backward shift deletion.
+     */
+    static boolean shouldShift(int last, int slot, int position) {
+        return last <= position ? last >= slot || slot > position : last >= slot && slot > position;
+    }
+
+    private PrimitiveHashing() {
+    }
+}
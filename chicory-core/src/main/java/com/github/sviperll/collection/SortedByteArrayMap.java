@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import com.github.sviperll.ByteArray;
+import com.github.sviperll.stream.SaturableConsuming;
+import com.github.sviperll.stream.Stream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * ByteArrayMap that keeps keys in unsigned lexicographic order.
+ * <p>
+ * Keys with common prefix and keys from some range are found in O(log n + k) time,
+ * where k is number of found keys, without scanning the whole map.
+ * Found entries can be streamed with {@link SortedByteArrayMap#prefixScan(byte[])} and
+ * {@link SortedByteArrayMap#range(byte[], byte[])}.
+ * Streams are lazy: they are evaluated each time they are consumed and stop as soon as
+ * consumer needs no more entries.
+ *
+ * @see ByteArrayMap#createSortedInstance()
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ * @param <V> type of values
+ */
+public class SortedByteArrayMap<V> extends ByteArrayMap<V> {
+    /**
+     * Least key that is greater than every key starting with given prefix or null if there is no such key.
+     */
+    private static ByteArray prefixUpperBound(byte[] prefix) {
+        int length = prefix.length;
+        while (length > 0 && prefix[length - 1] == (byte)0xFF) {
+            length--;
+        }
+        if (length == 0)
+            return null;
+        byte[] result = Arrays.copyOf(prefix, length);
+        result[length - 1]++;
+        return ByteArray.wrap(result);
+    }
+
+    private static <K, V> Stream<Map.Entry<K, V>> stream(NavigableMap<K, V> map) {
+        return Stream.of((SaturableConsuming<? super Map.Entry<K, V>> consumer) -> {
+            for (Map.Entry<K, V> entry: map.entrySet()) {
+                if (!consumer.needsMore())
+                    break;
+                consumer.accept(entry);
+            }
+        });
+    }
+
+    private final NavigableMap<ByteArray, V> map;
+
+    SortedByteArrayMap(NavigableMap<ByteArray, V> map) {
+        super(new MapByteArrayTable<>(map));
+        this.map = map;
+    }
+
+    SortedByteArrayMap() {
+        this(new TreeMap<>());
+    }
+
+    /**
+     * Live view of entries whose keys start with given prefix.
+     */
+    public NavigableMap<ByteArray, V> prefixMap(byte[] prefix) {
+        ByteArray from = new ByteArray(prefix);
+        ByteArray to = prefixUpperBound(prefix);
+        return to == null ? map.tailMap(from, true) : map.subMap(from, true, to, false);
+    }
+
+    /**
+     * Live view of entries whose keys are greater than or equal to from and less than to.
+     */
+    public NavigableMap<ByteArray, V> rangeMap(byte[] from, byte[] to) {
+        ByteArray fromKey = new ByteArray(from);
+        ByteArray toKey = new ByteArray(to);
+        if (fromKey.compareTo(toKey) > 0)
+            return Collections.emptyNavigableMap();
+        return map.subMap(fromKey, true, toKey, false);
+    }
+
+    /**
+     * Entries whose keys start with given prefix in key order.
+     */
+    public Stream<Map.Entry<ByteArray, V>> prefixScan(byte[] prefix) {
+        return stream(prefixMap(prefix));
+    }
+
+    /**
+     * Entries whose keys are greater than or equal to from and less than to in key order.
+     */
+    public Stream<Map.Entry<ByteArray, V>> range(byte[] from, byte[] to) {
+        return stream(rangeMap(from, to));
+    }
+
+    /**
+     * All entries in key order.
+     */
+    public Stream<Map.Entry<ByteArray, V>> stream() {
+        return stream(map);
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * List backed by 32-way trie with tail buffer, also known as persistent vector.
+ * <p>
+ * {@link VectorTrieList#copy()} takes constant time: copy shares trie nodes and tail with original list.
+ * Nodes are owned by the list that created them and are modified in place by their owner.
+ * When list is copied both lists lose ownership of all existing nodes, so
+ * the first write after copy copies only nodes on the path from root to changed element,
+ * that is O(log32 n) nodes.
+ * <p>
+ * Get, set, append and removal of the last element take O(log32 n) time.
+ * Insertion and removal at other positions shift following elements and take O(n) time.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class VectorTrieList<T> extends AbstractList<T> implements RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    public static <T> VectorTrieList<T> createInstance() {
+        return new VectorTrieList<>(0, BITS, new Node(null, new Object[WIDTH]), new Object[WIDTH]);
+    }
+
+    /**
+     * Copy of given collection.
+     * <p>
+     * Takes constant time when given collection is VectorTrieList.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> VectorTrieList<T> copyOf(Collection<? extends T> collection) {
+        if (collection instanceof VectorTrieList)
+            return ((VectorTrieList<T>)collection).copy();
+        else {
+            VectorTrieList<T> result = createInstance();
+            result.addAll(collection);
+            return result;
+        }
+    }
+
+    private Object edit = new Object();
+    private int size;
+    private int shift;
+    private Node root;
+    private Object[] tail;
+
+    /**
+     * Tail is modified in place only when it's owned by this list.
+     */
+    private Object tailEdit = null;
+
+    private VectorTrieList(int size, int shift, Node root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Copy of this list that shares structure with this list.
+     */
+    public VectorTrieList<T> copy() {
+        edit = new Object();
+        return new VectorTrieList<>(size, shift, root, tail);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        checkIndex(index);
+        return (T)arrayFor(index)[index & MASK];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(int index, T element) {
+        checkIndex(index);
+        if (index >= tailOffset()) {
+            ensureEditableTail();
+            T oldElement = (T)tail[index & MASK];
+            tail[index & MASK] = element;
+            return oldElement;
+        } else {
+            T oldElement = (T)arrayFor(index)[index & MASK];
+            root = set(shift, root, index, element);
+            return oldElement;
+        }
+    }
+
+    @Override
+    public boolean add(T element) {
+        modCount++;
+        if (size - tailOffset() < WIDTH) {
+            ensureEditableTail();
+            tail[size & MASK] = element;
+        } else {
+            Node tailNode = new Node(tailEdit == edit ? edit : null, tail);
+            tail = new Object[WIDTH];
+            tail[0] = element;
+            tailEdit = edit;
+            if ((size >>> BITS) > (1 << shift)) {
+                Node newRoot = new Node(edit, new Object[WIDTH]);
+                newRoot.array[0] = root;
+                newRoot.array[1] = newPath(shift, tailNode);
+                root = newRoot;
+                shift += BITS;
+            } else {
+                root = pushTail(shift, root, tailNode);
+            }
+        }
+        size++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, T element) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (index == size)
+            add(element);
+        else {
+            add(get(size - 1));
+            for (int i = size - 2; i > index; i--)
+                set(i, get(i - 1));
+            set(index, element);
+        }
+    }
+
+    @Override
+    public T remove(int index) {
+        T oldElement = get(index);
+        for (int i = index; i < size - 1; i++)
+            set(i, get(i + 1));
+        removeLast();
+        return oldElement;
+    }
+
+    /**
+     * Removes last element of the list.
+     *
+     * @throws NoSuchElementException if list is empty
+     * @return removed element
+     */
+    @SuppressWarnings("unchecked")
+    public T removeLast() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        modCount++;
+        T oldElement;
+        if (size == 1 || ((size - 1) & MASK) > 0) {
+            ensureEditableTail();
+            oldElement = (T)tail[(size - 1) & MASK];
+            tail[(size - 1) & MASK] = null;
+        } else {
+            oldElement = (T)tail[0];
+            tail = arrayFor(size - 2).clone();
+            tailEdit = edit;
+            Node newRoot = popTail(shift, root);
+            if (newRoot == null)
+                newRoot = new Node(null, new Object[WIDTH]);
+            if (shift > BITS && newRoot.array[1] == null) {
+                newRoot = (Node)newRoot.array[0];
+                shift -= BITS;
+            }
+            root = newRoot;
+        }
+        size--;
+        return oldElement;
+    }
+
+    @Override
+    public void clear() {
+        modCount++;
+        size = 0;
+        shift = BITS;
+        root = new Node(null, new Object[WIDTH]);
+        tail = new Object[WIDTH];
+        tailEdit = edit;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        int count = toIndex - fromIndex;
+        for (int i = fromIndex; i < size - count; i++)
+            set(i, get(i + count));
+        for (int i = 0; i < count; i++)
+            removeLast();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] arrayFor(int index) {
+        if (index >= tailOffset())
+            return tail;
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS)
+            node = (Node)node.array[(index >>> level) & MASK];
+        return node.array;
+    }
+
+    private void ensureEditableTail() {
+        if (tailEdit != edit) {
+            tail = tail.clone();
+            tailEdit = edit;
+        }
+    }
+
+    private Node editable(Node node) {
+        return node.edit == edit ? node : new Node(edit, node.array.clone());
+    }
+
+    private Node set(int level, Node node, int index, Object element) {
+        Node result = editable(node);
+        if (level == 0)
+            result.array[index & MASK] = element;
+        else {
+            int childIndex = (index >>> level) & MASK;
+            result.array[childIndex] = set(level - BITS, (Node)node.array[childIndex], index, element);
+        }
+        return result;
+    }
+
+    private Node pushTail(int level, Node parent, Node tailNode) {
+        int childIndex = ((size - 1) >>> level) & MASK;
+        Node result = editable(parent);
+        Node child;
+        if (level == BITS)
+            child = tailNode;
+        else {
+            Node existing = (Node)parent.array[childIndex];
+            child = existing != null ? pushTail(level - BITS, existing, tailNode) : newPath(level - BITS, tailNode);
+        }
+        result.array[childIndex] = child;
+        return result;
+    }
+
+    private Node newPath(int level, Node node) {
+        if (level == 0)
+            return node;
+        Node result = new Node(edit, new Object[WIDTH]);
+        result.array[0] = newPath(level - BITS, node);
+        return result;
+    }
+
+    private Node popTail(int level, Node node) {
+        int childIndex = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Node child = popTail(level - BITS, (Node)node.array[childIndex]);
+            if (child == null && childIndex == 0)
+                return null;
+            Node result = editable(node);
+            result.array[childIndex] = child;
+            return result;
+        } else if (childIndex == 0)
+            return null;
+        else {
+            Node result = editable(node);
+            result.array[childIndex] = null;
+            return result;
+        }
+    }
+
+    private static class Node {
+        final Object edit;
+        final Object[] array;
+
+        Node(Object edit, Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection.snapshotable;
+
+import com.github.sviperll.collection.HashTrieMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Thread-safe map that can be snapshotted with {@link Snapshot#unmodifiableMapSnapshotOf(Map)}.
+ * <p>
+ * Current state of the map is an immutable {@link HashTrieMap} that is held by atomic reference.
+ * Reads and snapshots never lock and never wait for writers: snapshot is just current state.
+ * Writers copy current state, which takes constant time and shares structure with it,
+ * change the copy, which copies O(log n) nodes, and publish the copy with compare-and-set.
+ * Writer retries when another writer has published its change first.
+ * Published state owns no trie nodes, so that readers and iterators never write to shared state.
+ * <p>
+ * Iterators iterate over the state of the map at the moment iterator was created.
+ * Like {@link java.util.concurrent.ConcurrentHashMap}, this map permits neither null keys nor null values.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class ConcurrentSnapshotableMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+    private final AtomicReference<HashTrieMap<K, V>> state;
+    private Set<Entry<K, V>> entrySet = null;
+
+    public ConcurrentSnapshotableMap() {
+        state = new AtomicReference<>(HashTrieMap.<K, V>createInstance());
+    }
+
+    public ConcurrentSnapshotableMap(Map<? extends K, ? extends V> m) {
+        HashTrieMap<K, V> map = HashTrieMap.createInstance();
+        for (Entry<? extends K, ? extends V> entry: m.entrySet()) {
+            map.put(Objects.requireNonNull(entry.getKey()), Objects.requireNonNull(entry.getValue()));
+        }
+        state = new AtomicReference<>(map.copy());
+    }
+
+    /**
+     * Publishes copy of next state, since copy owns no nodes and
+     * readers of published state never write to it.
+     */
+    private boolean compareAndPublish(HashTrieMap<K, V> current, HashTrieMap<K, V> next) {
+        return state.compareAndSet(current, next.copy());
+    }
+
+    Map<? extends K, ? extends V> snapshot() {
+        return UnsafeReferenceOwnership.unmodifiableWrapperForMapWithNoOtherReferencesAnywhere(state.get());
+    }
+
+    @Override
+    public int size() {
+        return state.get().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return state.get().isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Objects.requireNonNull(key);
+        return state.get().containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        Objects.requireNonNull(key);
+        return state.get().get(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        for (;;) {
+            HashTrieMap<K, V> current = state.get();
+            HashTrieMap<K, V> next = current.copy();
+            V oldValue = next.put(key, value);
+            if (compareAndPublish(current, next))
+                return oldValue;
+        }
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (;;) {
+            HashTrieMap<K, V> current = state.get();
+            HashTrieMap<K, V> next = current.copy();
+            for (Entry<? extends K, ? extends V> entry: m.entrySet()) {
+                next.put(Objects.requireNonNull(entry.getKey()), Objects.requireNonNull(entry.getValue()));
+            }
+            if (compareAndPublish(current, next))
+                return;
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        Objects.requireNonNull(key);
+        for (;;) {
+            HashTrieMap<K, V> current = state.get();
+            if (!current.containsKey(key))
+                return null;
+            HashTrieMap<K, V> next = current.copy();
+            V oldValue = next.remove(key);
+            if (compareAndPublish(current, next))
+                return oldValue;
+        }
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        for (;;) {
+            HashTrieMap<K, V> current = state.get();
+            V oldValue = current.get(key);
+            if (oldValue != null)
+                return oldValue;
+            HashTrieMap<K, V> next = current.copy();
+            next.put(key, value);
+            if (compareAndPublish(current, next))
+                return null;
+        }
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        Objects.requireNonNull(key);
+        for (;;) {
+            HashTrieMap<K, V> current = state.get();
+            V oldValue = current.get(key);
+            if (oldValue == null || !oldValue.equals(value))
+                return false;
+            HashTrieMap<K, V> next = current.copy();
+            next.remove(key);
+            if (compareAndPublish(current, next))
+                return true;
+        }
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(newValue);
+        for (;;) {
+            HashTrieMap<K, V> current = state.get();
+            V value = current.get(key);
+            if (value == null || !value.equals(oldValue))
+                return false;
+            HashTrieMap<K, V> next = current.copy();
+            next.put(key, newValue);
+            if (compareAndPublish(current, next))
+                return true;
+        }
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        for (;;) {
+            HashTrieMap<K, V> current = state.get();
+            V oldValue = current.get(key);
+            if (oldValue == null)
+                return null;
+            HashTrieMap<K, V> next = current.copy();
+            next.put(key, value);
+            if (compareAndPublish(current, next))
+                return oldValue;
+        }
+    }
+
+    @Override
+    public void clear() {
+        state.set(HashTrieMap.<K, V>createInstance());
+    }
+
+    @Override
+    @SuppressWarnings("ReturnOfCollectionOrArrayField")
+    public Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntrySetIterator(state.get().entrySet().iterator());
+        }
+
+        @Override
+        public int size() {
+            return state.get().size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return state.get().entrySet().contains(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            } else {
+                Entry<?, ?> entry = (Entry<?, ?>)o;
+                return ConcurrentSnapshotableMap.this.remove(entry.getKey(), entry.getValue());
+            }
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentSnapshotableMap.this.clear();
+        }
+
+        /**
+         * Iterator over immutable state, modifications are written to current state of the map.
+         */
+        private class EntrySetIterator implements Iterator<Entry<K, V>> {
+
+            private final Iterator<Entry<K, V>> iterator;
+            private Entry<K, V> last = null;
+
+            private EntrySetIterator(Iterator<Entry<K, V>> iterator) {
+                this.iterator = iterator;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                last = new IteratorEntry(iterator.next());
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                } else {
+                    ConcurrentSnapshotableMap.this.remove(last.getKey());
+                    last = null;
+                }
+            }
+        }
+
+        private class IteratorEntry extends SimpleEntry<K, V> {
+            private static final long serialVersionUID = 1L;
+
+            IteratorEntry(Entry<K, V> entry) {
+                super(entry);
+            }
+
+            @Override
+            public V setValue(V value) {
+                put(getKey(), value);
+                return super.setValue(value);
+            }
+        }
+    }
+}
@@ -2,6 +2,8 @@
 
 package com.github.sviperll.collection.snapshotable;
 
+import com.github.sviperll.collection.MapChange;
+import com.github.sviperll.stream.Stream;
 import java.util.AbstractCollection;
 import java.util.AbstractList;
 import java.util.AbstractMap;
@@ -44,6 +46,22 @@ public class Snapshot {
         return preciseTypeSnapshotOf(argument);
     }
 
+    /**
+     * Changes that turn older map into newer one.
+     * <p>
+     * Arguments are snapshotted first.
+     * Snapshots of maps created with persistent map factories, like
+     * {@link com.github.sviperll.collection.MapFactories#hashTrieMap()} and
+     * {@link com.github.sviperll.collection.MapFactories#avlTreeMap()}, share structure
+     * and changes between them are found in time proportional to number of changes.
+     * Other maps are compared entry by entry.
+     */
+    public static <K, V> Stream<MapChange<K, V>> changesBetween(Map<? extends K, ? extends V> older,
+                                                                Map<? extends K, ? extends V> newer) {
+        return MapChange.changesBetween(UnsafeReferenceOwnership.unwrapMap(unmodifiableMapSnapshotOf(older)),
+                                        UnsafeReferenceOwnership.unwrapMap(unmodifiableMapSnapshotOf(newer)));
+    }
+
     private static <T> Collection<? extends T> preciseTypeSnapshotOf(Collection<T> argument) {
         if (UnsafeReferenceOwnership.noModifiableReferencesExistsAnywhere(argument)) {
             return argument;
@@ -60,9 +78,12 @@ public class Snapshot {
     private static <T> Set<? extends T> preciseTypeSnapshotOf(Set<T> argument) {
         if (UnsafeReferenceOwnership.noModifiableReferencesExistsAnywhere(argument)) {
             return argument;
+        } else if (argument instanceof SnapshotableSet) {
+            SnapshotableSet<T> snapshotable = (SnapshotableSet<T>)argument;
+            return snapshotable.snapshot();
         } else if (argument instanceof SortedSet) {
             return UnsafeReferenceOwnership.unmodifiableWrapperForSetWithNoOtherReferencesAnywhere(
-                    Collections.unmodifiableSet(new TreeSet<>(argument)));
+                    Collections.unmodifiableSet(new TreeSet<>((SortedSet<T>)argument)));
         } else {
             return UnsafeReferenceOwnership.unmodifiableWrapperForSetWithNoOtherReferencesAnywhere(
                     Collections.unmodifiableSet(new HashSet<>(argument)));
@@ -87,9 +108,12 @@ public class Snapshot {
         } else if (argument instanceof SnapshotableMap) {
             SnapshotableMap<K, V> snapshotable = (SnapshotableMap<K, V>)argument;
             return snapshotable.snapshot();
+        } else if (argument instanceof ConcurrentSnapshotableMap) {
+            ConcurrentSnapshotableMap<K, V> snapshotable = (ConcurrentSnapshotableMap<K, V>)argument;
+            return snapshotable.snapshot();
         } else if (argument instanceof SortedMap) {
             return UnsafeReferenceOwnership.unmodifiableWrapperForMapWithNoOtherReferencesAnywhere(
-                    new TreeMap<>(argument));
+                    new TreeMap<>((SortedMap<K, V>)argument));
         } else {
             return UnsafeReferenceOwnership.unmodifiableWrapperForMapWithNoOtherReferencesAnywhere(
                     new HashMap<>(argument));
@@ -37,14 +37,21 @@ import java.util.Collection;
 import java.util.List;
 
 /**
+ * List that can be snapshotted with {@link Snapshot#unmodifiableListSnapshotOf(List)}.
+ * <p>
+ * Snapshot shares underlying list with SnapshotableList and
+ * underlying list is copied with {@link ListFactory#createCopyOf(Collection)} on the first write after snapshot.
+ * Factory always receives list that it has created itself, so factories of persistent lists, like
+ * {@link com.github.sviperll.collection.ListFactories#vectorTrieList()}, make both snapshot and
+ * subsequent copy cheap.
  *
  * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
  */
 public class SnapshotableList<T> extends AbstractList<T> {
 
     private List<T> list;
-    private boolean shouldCopyOnWrite = false;
-    private ListFactory<T> factory;
+    private List<T> snapshot = null;
+    private final ListFactory<T> factory;
 
     public SnapshotableList(ListFactory<T> factory) {
         this.factory = factory;
@@ -52,16 +59,16 @@ public class SnapshotableList<T> extends AbstractList<T> {
     }
 
     public SnapshotableList(ListFactory<T> factory, Collection<? extends T> c) {
+        this.factory = factory;
         list = factory.createCopyOf(c);
     }
 
     @SuppressWarnings("ReturnOfCollectionOrArrayField")
     List<? extends T> snapshot() {
-        if (!shouldCopyOnWrite) {
-            list = UnsafeReferenceOwnership.unmodifiableWrapperForListWithNoOtherReferencesAnywhere(list);
-            shouldCopyOnWrite = true;
+        if (snapshot == null) {
+            snapshot = UnsafeReferenceOwnership.unmodifiableWrapperForListWithNoOtherReferencesAnywhere(list);
         }
-        return list;
+        return snapshot;
     }
 
     @Override
@@ -137,9 +144,9 @@ public class SnapshotableList<T> extends AbstractList<T> {
     }
 
     private void copyOnWrite() {
-        if (shouldCopyOnWrite) {
+        if (snapshot != null) {
             list = factory.createCopyOf(list);
-            shouldCopyOnWrite = false;
+            snapshot = null;
         }
     }
 
@@ -38,6 +38,13 @@ import java.util.Map;
 import java.util.Set;
 
 /**
+ * Map that can be snapshotted with {@link Snapshot#unmodifiableMapSnapshotOf(Map)}.
+ * <p>
+ * Snapshot shares underlying map with SnapshotableMap and
+ * underlying map is copied with {@link MapFactory#createCopyOf(Map)} on the first write after snapshot.
+ * Factory always receives map that it has created itself, so factories of persistent maps, like
+ * {@link com.github.sviperll.collection.MapFactories#hashTrieMap()}, make both snapshot and
+ * subsequent copy cheap.
  *
  * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
  */
@@ -45,8 +52,8 @@ import java.util.Set;
 
     private final MapFactory<K, V> factory;
     private Map<K, V> map;
+    private Map<K, V> snapshot = null;
     private Set<Entry<K, V>> entrySet = null;
-    private boolean shouldCopyOnWrite = false;
 
     public SnapshotableMap(MapFactory<K, V> factory) {
         this.factory = factory;
@@ -60,31 +67,48 @@ import java.util.Set;
 
     @SuppressWarnings("ReturnOfCollectionOrArrayField")
     Map<? extends K, ? extends V> snapshot() {
-        if (!shouldCopyOnWrite) {
-            map = UnsafeReferenceOwnership.unmodifiableWrapperForMapWithNoOtherReferencesAnywhere(map);
-            entrySet = null;
-            shouldCopyOnWrite = true;
+        if (snapshot == null) {
+            snapshot = UnsafeReferenceOwnership.unmodifiableWrapperForMapWithNoOtherReferencesAnywhere(map);
         }
-        return map;
+        return snapshot;
     }
 
     private void copyOnWrite() {
-        if (shouldCopyOnWrite) {
+        if (snapshot != null) {
             map = factory.createCopyOf(map);
-            entrySet = null;
-            shouldCopyOnWrite = false;
+            snapshot = null;
         }
     }
 
+    /**
+     * Current underlying map. Should be used for reading only.
+     */
+    Map<K, V> readableMap() {
+        return map;
+    }
+
+    /**
+     * Current underlying map, copied if it's shared with snapshot.
+     */
+    Map<K, V> writableMap() {
+        copyOnWrite();
+        return map;
+    }
+
     @Override
     @SuppressWarnings("ReturnOfCollectionOrArrayField")
     public Set<Entry<K, V>> entrySet() {
         if (entrySet == null) {
-            entrySet = new EntrySet(map.entrySet());
+            entrySet = new EntrySet();
         }
         return entrySet;
     }
 
+    @Override
+    public int size() {
+        return map.size();
+    }
+
     @Override
     public boolean containsKey(Object key) {
         return map.containsKey(key);
@@ -109,69 +133,111 @@ import java.util.Set;
 
     private class EntrySet extends AbstractSet<Entry<K, V>> {
 
-        private final Set<Entry<K, V>> set;
-
-        private EntrySet(Set<Entry<K, V>> entrySet) {
-            this.set = entrySet;
-        }
-
         @Override
         public Iterator<Entry<K, V>> iterator() {
-            return new EntrySetIterator(set.iterator());
+            return new EntrySetIterator(map.entrySet().iterator());
         }
 
         @Override
         public int size() {
-            return set.size();
+            return map.size();
         }
 
         @Override
         public void clear() {
             if (!isEmpty()) {
                 copyOnWrite();
-                set.clear();
+                map.clear();
             }
         }
 
         @Override
         public boolean contains(Object o) {
-            return set.contains(o);
+            return map.entrySet().contains(o);
         }
 
         @Override
         public boolean remove(Object o) {
-            copyOnWrite();
-            return set.remove(o);
+            if (!contains(o)) {
+                return false;
+            } else {
+                copyOnWrite();
+                return map.entrySet().remove(o);
+            }
         }
 
         @Override
         public boolean add(Entry<K, V> entry) {
             copyOnWrite();
-            return set.add(entry);
+            return map.entrySet().add(entry);
+        }
+    }
+
+    /**
+     * Iterator keeps iterating over the same underlying map even when it is copied on write.
+     * Modifications through iterator are written to underlying map directly while it's not shared with a snapshot.
+     */
+    class EntrySetIterator implements Iterator<Entry<K, V>> {
+
+        private final Map<K, V> iteratedMap = map;
+        private final Iterator<Entry<K, V>> iterator;
+        private Entry<K, V> last = null;
+
+        /**
+         * @param iterator iterator over entries of current underlying map or of some view of it
+         */
+        EntrySetIterator(Iterator<Entry<K, V>> iterator) {
+            this.iterator = iterator;
         }
 
-        private class EntrySetIterator implements Iterator<Entry<K, V>> {
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
 
-            private final Iterator<Entry<K, V>> iterator;
+        @Override
+        public Entry<K, V> next() {
+            last = iterator.next();
+            return new IteratorEntry(last);
+        }
 
-            private EntrySetIterator(Iterator<Entry<K, V>> iterator) {
-                this.iterator = iterator;
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            } else if (isIteratedMapWritable()) {
+                iterator.remove();
+            } else {
+                copyOnWrite();
+                map.remove(last.getKey());
             }
+            last = null;
+        }
 
-            @Override
-            public boolean hasNext() {
-                return iterator.hasNext();
-            }
+        private boolean isIteratedMapWritable() {
+            return iteratedMap == map && snapshot == null;
+        }
 
-            @Override
-            public Entry<K, V> next() {
-                return iterator.next();
+        private class IteratorEntry extends SimpleEntry<K, V> {
+            private static final long serialVersionUID = 1L;
+
+            private final Entry<K, V> entry;
+
+            IteratorEntry(Entry<K, V> entry) {
+                super(entry);
+                this.entry = entry;
             }
 
             @Override
-            public void remove() {
-                copyOnWrite();
-                iterator.remove();
+            public V setValue(V value) {
+                V oldValue = super.setValue(value);
+                if (isIteratedMapWritable()) {
+                    entry.setValue(value);
+                } else {
+                    copyOnWrite();
+                    map.put(getKey(), value);
+                }
+                return oldValue;
             }
         }
     }
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection.snapshotable;
+
+import com.github.sviperll.collection.MapFactory;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Set that can be snapshotted with {@link Snapshot#unmodifiableSetSnapshotOf(Set)}.
+ * <p>
+ * Set is backed by {@link SnapshotableMap} created with given factory
+ * and shares copy-on-write behaviour with it.
+ * With {@link com.github.sviperll.collection.MapFactories#hashTrieMap()} factory
+ * both snapshot and subsequent copy take constant time.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class SnapshotableSet<T> extends AbstractSet<T> {
+
+    private final SnapshotableMap<T, Boolean> map;
+
+    public SnapshotableSet(MapFactory<T, Boolean> factory) {
+        this(new SnapshotableMap<>(factory));
+    }
+
+    public SnapshotableSet(MapFactory<T, Boolean> factory, Collection<? extends T> c) {
+        this(factory);
+        addAll(c);
+    }
+
+    SnapshotableSet(SnapshotableMap<T, Boolean> map) {
+        this.map = map;
+    }
+
+    SnapshotableMap<T, Boolean> map() {
+        return map;
+    }
+
+    Set<? extends T> snapshot() {
+        return map.snapshot().keySet();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return map.keySet().iterator();
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return map.containsKey(o);
+    }
+
+    @Override
+    public boolean add(T e) {
+        if (map.containsKey(e)) {
+            return false;
+        } else {
+            map.put(e, Boolean.TRUE);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!map.containsKey(o)) {
+            return false;
+        } else {
+            map.remove(o);
+            return true;
+        }
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+}
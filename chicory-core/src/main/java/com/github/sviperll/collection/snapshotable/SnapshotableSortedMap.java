@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection.snapshotable;
+
+import com.github.sviperll.collection.SortedMapFactory;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import javax.annotation.Nullable;
+
+/**
+ * Sorted map that can be snapshotted with {@link Snapshot#unmodifiableMapSnapshotOf(Map)}.
+ * <p>
+ * Works like {@link SnapshotableMap}. With
+ * {@link com.github.sviperll.collection.MapFactories#avlTreeMap()} factory
+ * both snapshot and subsequent copy take constant time.
+ * <p>
+ * Submap views are backed by this map: they always see current underlying map and
+ * writes through views copy underlying map when it's shared with snapshot.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class SnapshotableSortedMap<K, V> extends SnapshotableMap<K, V> implements SortedMap<K, V> {
+
+    public SnapshotableSortedMap(SortedMapFactory<K, V> factory) {
+        super(factory);
+    }
+
+    public SnapshotableSortedMap(SortedMapFactory<K, V> factory, Map<? extends K, ? extends V> m) {
+        super(factory, m);
+    }
+
+    private SortedMap<K, V> readableSortedMap() {
+        return (SortedMap<K, V>)readableMap();
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return readableSortedMap().comparator();
+    }
+
+    @Override
+    public K firstKey() {
+        return readableSortedMap().firstKey();
+    }
+
+    @Override
+    public K lastKey() {
+        return readableSortedMap().lastKey();
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return new SubMap(fromKey, true, toKey, true);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return new SubMap(null, false, toKey, true);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return new SubMap(fromKey, true, null, false);
+    }
+
+    private class SubMap extends AbstractMap<K, V> implements SortedMap<K, V> {
+        private final K fromKey;
+        private final boolean hasFromKey;
+        private final K toKey;
+        private final boolean hasToKey;
+        private Set<Entry<K, V>> entrySet = null;
+
+        SubMap(@Nullable K fromKey, boolean hasFromKey, @Nullable K toKey, boolean hasToKey) {
+            this.fromKey = fromKey;
+            this.hasFromKey = hasFromKey;
+            this.toKey = toKey;
+            this.hasToKey = hasToKey;
+            // Let underlying map validate bounds
+            readableRange();
+        }
+
+        private SortedMap<K, V> range(Map<K, V> map) {
+            SortedMap<K, V> sortedMap = (SortedMap<K, V>)map;
+            if (hasFromKey && hasToKey) {
+                return sortedMap.subMap(fromKey, toKey);
+            } else if (hasFromKey) {
+                return sortedMap.tailMap(fromKey);
+            } else if (hasToKey) {
+                return sortedMap.headMap(toKey);
+            } else {
+                return sortedMap;
+            }
+        }
+
+        private SortedMap<K, V> readableRange() {
+            return range(readableMap());
+        }
+
+        private SortedMap<K, V> writableRange() {
+            return range(writableMap());
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return readableRange().comparator();
+        }
+
+        @Override
+        public int size() {
+            return readableRange().size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return readableRange().containsKey(key);
+        }
+
+        @Override
+        public V get(Object key) {
+            return readableRange().get(key);
+        }
+
+        @Override
+        public V put(K key, V value) {
+            return writableRange().put(key, value);
+        }
+
+        @Override
+        public V remove(Object key) {
+            if (!containsKey(key)) {
+                return null;
+            } else {
+                return writableRange().remove(key);
+            }
+        }
+
+        @Override
+        public K firstKey() {
+            return readableRange().firstKey();
+        }
+
+        @Override
+        public K lastKey() {
+            return readableRange().lastKey();
+        }
+
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            readableRange().subMap(fromKey, toKey);
+            return new SubMap(fromKey, true, toKey, true);
+        }
+
+        @Override
+        public SortedMap<K, V> headMap(K toKey) {
+            readableRange().headMap(toKey);
+            return new SubMap(fromKey, hasFromKey, toKey, true);
+        }
+
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey) {
+            readableRange().tailMap(fromKey);
+            return new SubMap(fromKey, true, toKey, hasToKey);
+        }
+
+        @Override
+        @SuppressWarnings("ReturnOfCollectionOrArrayField")
+        public Set<Entry<K, V>> entrySet() {
+            if (entrySet == null) {
+                entrySet = new SubMapEntrySet();
+            }
+            return entrySet;
+        }
+
+        private class SubMapEntrySet extends AbstractSet<Entry<K, V>> {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntrySetIterator(readableRange().entrySet().iterator());
+            }
+
+            @Override
+            public int size() {
+                return readableRange().size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return readableRange().entrySet().contains(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if (!contains(o)) {
+                    return false;
+                } else {
+                    return writableRange().entrySet().remove(o);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection.snapshotable;
+
+import com.github.sviperll.collection.SortedMapFactory;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * Sorted set that can be snapshotted with {@link Snapshot#unmodifiableSetSnapshotOf(Set)}.
+ * <p>
+ * Set is backed by {@link SnapshotableSortedMap} created with given factory.
+ * With {@link com.github.sviperll.collection.MapFactories#avlTreeMap()} factory
+ * both snapshot and subsequent copy take constant time.
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class SnapshotableSortedSet<T> extends SnapshotableSet<T> implements SortedSet<T> {
+
+    public SnapshotableSortedSet(SortedMapFactory<T, Boolean> factory) {
+        this(new SnapshotableSortedMap<>(factory));
+    }
+
+    public SnapshotableSortedSet(SortedMapFactory<T, Boolean> factory, Collection<? extends T> c) {
+        this(factory);
+        addAll(c);
+    }
+
+    private SnapshotableSortedSet(SnapshotableSortedMap<T, Boolean> map) {
+        super(map);
+    }
+
+    @Override
+    SnapshotableSortedMap<T, Boolean> map() {
+        // Only SnapshotableSortedMap is ever passed to super constructor
+        return (SnapshotableSortedMap<T, Boolean>)super.map();
+    }
+
+    @Override
+    public Comparator<? super T> comparator() {
+        return map().comparator();
+    }
+
+    @Override
+    public T first() {
+        return map().firstKey();
+    }
+
+    @Override
+    public T last() {
+        return map().lastKey();
+    }
+
+    @Override
+    public SortedSet<T> subSet(T fromElement, T toElement) {
+        return new KeySet<>(map().subMap(fromElement, toElement));
+    }
+
+    @Override
+    public SortedSet<T> headSet(T toElement) {
+        return new KeySet<>(map().headMap(toElement));
+    }
+
+    @Override
+    public SortedSet<T> tailSet(T fromElement) {
+        return new KeySet<>(map().tailMap(fromElement));
+    }
+
+    private static class KeySet<T> extends AbstractSet<T> implements SortedSet<T> {
+        private final SortedMap<T, Boolean> map;
+
+        KeySet(SortedMap<T, Boolean> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return map.keySet().iterator();
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.containsKey(o);
+        }
+
+        @Override
+        public boolean add(T e) {
+            if (map.containsKey(e)) {
+                return false;
+            } else {
+                map.put(e, Boolean.TRUE);
+                return true;
+            }
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!map.containsKey(o)) {
+                return false;
+            } else {
+                map.remove(o);
+                return true;
+            }
+        }
+
+        @Override
+        public Comparator<? super T> comparator() {
+            return map.comparator();
+        }
+
+        @Override
+        public T first() {
+            return map.firstKey();
+        }
+
+        @Override
+        public T last() {
+            return map.lastKey();
+        }
+
+        @Override
+        public SortedSet<T> subSet(T fromElement, T toElement) {
+            return new KeySet<>(map.subMap(fromElement, toElement));
+        }
+
+        @Override
+        public SortedSet<T> headSet(T toElement) {
+            return new KeySet<>(map.headMap(toElement));
+        }
+
+        @Override
+        public SortedSet<T> tailSet(T fromElement) {
+            return new KeySet<>(map.tailMap(fromElement));
+        }
+    }
+}
@@ -75,6 +75,17 @@ class UnsafeReferenceOwnership {
     static <K, V> boolean noModifiableReferencesExistsAnywhere(Map<K, V> argument) {
         return argument instanceof UnmodifiableWrapperForMapWithNoOtherReferencesAnywhere;
     }
+
+    /**
+     * Map wrapped by unmodifiable wrapper or argument itself when it is not a wrapper.
+     * Result should be used for reading only.
+     */
+    static <K, V> Map<K, V> unwrapMap(Map<K, V> argument) {
+        if (argument instanceof UnmodifiableWrapperForMapWithNoOtherReferencesAnywhere)
+            return ((UnmodifiableWrapperForMapWithNoOtherReferencesAnywhere<K, V>)argument).map;
+        else
+            return argument;
+    }
     
     private UnsafeReferenceOwnership() {
     }
@@ -107,4 +107,50 @@ public class ByteArrayTest {
         byte[] b = new byte[] {};
         assertTrue(new ByteArray(a).compareTo(new ByteArray(b)) == 0);
     }
+
+    @Test
+    public void testCompareToIsUnsigned() {
+        byte[] a = new byte[] {1, 2, 3};
+        byte[] b = new byte[] {(byte)0xFF};
+        assertTrue(new ByteArray(a).compareTo(new ByteArray(b)) < 0);
+    }
+
+    @Test
+    public void testSliceEqualsToCopy() {
+        byte[] buffer = new byte[] {9, 1, 2, 3, 9};
+        ByteArray slice = ByteArray.wrap(buffer, 1, 3);
+        ByteArray copy = new ByteArray(new byte[] {1, 2, 3});
+        assertTrue(slice.equals(copy));
+        assertEquals(copy.hashCode(), slice.hashCode());
+        assertEquals(Arrays.hashCode(new byte[] {1, 2, 3}), slice.hashCode());
+        assertTrue(slice.compareTo(copy) == 0);
+        assertTrue(ByteArray.wrap(buffer).slice(1, 3).equals(copy));
+    }
+
+    @Test
+    public void testStartsWith() {
+        ByteArray array = new ByteArray(new byte[] {1, 2, 3});
+        assertTrue(array.startsWith(new ByteArray(new byte[] {1, 2})));
+        assertTrue(array.startsWith(new ByteArray(new byte[] {})));
+        assertTrue(!array.startsWith(new ByteArray(new byte[] {2})));
+        assertTrue(!array.startsWith(new ByteArray(new byte[] {1, 2, 3, 4})));
+    }
+
+    @Test
+    public void testCompareToFindsFirstDifferenceInLongRegions() {
+        byte[] a = new byte[37];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = (byte)(i * 7);
+        }
+        for (int offset = 0; offset < 3; offset++) {
+            for (int i = offset; i < a.length; i++) {
+                byte[] b = Arrays.copyOf(a, a.length);
+                b[i] = (byte)0xFF;
+                ByteArray x = ByteArray.wrap(a, offset, a.length - offset);
+                ByteArray y = ByteArray.wrap(b, offset, b.length - offset);
+                assertEquals(Integer.signum((a[i] & 0xFF) - 0xFF), Integer.signum(x.compareTo(y)));
+                assertEquals(a[i] == b[i], x.equals(y));
+            }
+        }
+    }
 }
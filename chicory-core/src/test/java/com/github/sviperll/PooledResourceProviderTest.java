@@ -29,10 +29,23 @@
  */
 package com.github.sviperll;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import javafx.util.Duration;
@@ -182,6 +195,66 @@ public class PooledResourceProviderTest {
         threadPool.shutdown();
     }
 
+    @Test
+    public void testConcurrentInstanceConcurrencyLimit() throws InterruptedException {
+        Duration runTimeMax = Duration.seconds(2);
+        int nRunningMax = 3;
+        AtomicInteger nRunning = new AtomicInteger(0);
+        ResourceProvider<Void> provider =
+                PooledResourceProvider.createConcurrentInstance(nRunningMax, 500, (consumer) -> consumer.accept(null));
+        ExecutorService threadPool = Executors.newCachedThreadPool();
+        long start = System.currentTimeMillis();
+        long duration = (long)runTimeMax.toMillis();
+        for (int i = 0; i < 64; i++) {
+            threadPool.execute(() -> {
+                while (System.currentTimeMillis() - start < duration) {
+                    provider.provideResourceTo((value) -> {
+                        nRunning.incrementAndGet();
+                        try {
+                            Thread.sleep(ThreadLocalRandom.current().nextLong(10));
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            nRunning.decrementAndGet();
+                        }
+                    });
+                }
+            });
+        }
+        while (System.currentTimeMillis() - start < duration) {
+            Assert.assertTrue(nRunning.get() <= nRunningMax);
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextLong(100));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        threadPool.shutdown();
+        Assert.assertTrue("Borrowers should never get stuck", threadPool.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testConcurrentInstanceIdleTime() throws InterruptedException {
+        final long maxIdleTimeMillis = 337;
+        final long maxIdleTimeMillisThreashold = 5;
+        AtomicInteger nAllocated = new AtomicInteger(0);
+        ResourceProvider<Void> provider = PooledResourceProvider.createConcurrentInstance(10, maxIdleTimeMillis, (consumer) -> {
+            nAllocated.incrementAndGet();
+            try {
+                consumer.accept(null);
+            } finally {
+                nAllocated.decrementAndGet();
+            }
+        });
+        provider.provideResourceTo(value -> {});
+        provider.provideResourceTo(value -> {});
+        Assert.assertEquals(1, nAllocated.get());
+        Thread.sleep(maxIdleTimeMillis - maxIdleTimeMillisThreashold);
+        Assert.assertEquals(1, nAllocated.get());
+        Thread.sleep(maxIdleTimeMillisThreashold + maxIdleTimeMillisThreashold);
+        Assert.assertEquals(0, nAllocated.get());
+    }
+
     @Test
     public void testIdleTime() throws InterruptedException {
         final long maxIdleTimeMillis = 337;
@@ -203,6 +276,293 @@ public class PooledResourceProviderTest {
         Assert.assertEquals(0, nAllocated.get());
     }
 
+    @Test
+    public void testWorkerExecutor() throws InterruptedException {
+        AtomicInteger nAllocated = new AtomicInteger(0);
+        AtomicInteger nExecuted = new AtomicInteger(0);
+        ExecutorService workerExecutor = PooledResourceProvider.createWorkerExecutor();
+        PoolConfiguration configuration = PooledResourceProvider.configuration(10, 100)
+                .withWorkerExecutor(runnable -> {
+                    nExecuted.incrementAndGet();
+                    workerExecutor.execute(runnable);
+                });
+        ResourceProvider<Void> provider = PooledResourceProvider.createInstance(configuration, (consumer) -> {
+            nAllocated.incrementAndGet();
+            try {
+                consumer.accept(null);
+            } finally {
+                nAllocated.decrementAndGet();
+            }
+        });
+        provider.provideResourceTo(value -> {
+            Assert.assertEquals(1, nAllocated.get());
+        });
+        Assert.assertEquals(1, nExecuted.get());
+        Thread.sleep(200);
+        Assert.assertEquals(0, nAllocated.get());
+        provider.provideResourceTo(value -> {
+            Assert.assertEquals(1, nAllocated.get());
+        });
+        Assert.assertEquals(2, nExecuted.get());
+        workerExecutor.shutdown();
+    }
+
+    @Test
+    public void testMinIdle() throws InterruptedException {
+        final long maxIdleTimeMillis = 100;
+        AtomicInteger nAllocated = new AtomicInteger(0);
+        AtomicInteger nAllocations = new AtomicInteger(0);
+        PoolConfiguration configuration = PooledResourceProvider.configuration(10, maxIdleTimeMillis).withMinIdle(2);
+        ResourceProvider<Void> provider = PooledResourceProvider.createInstance(configuration, (consumer) -> {
+            nAllocations.incrementAndGet();
+            nAllocated.incrementAndGet();
+            try {
+                consumer.accept(null);
+            } finally {
+                nAllocated.decrementAndGet();
+            }
+        });
+        Thread.sleep(maxIdleTimeMillis / 2);
+        Assert.assertEquals("minIdle resources should be prewarmed", 2, nAllocated.get());
+        provider.provideResourceTo(value -> {
+            Assert.assertEquals("Prewarmed resource should be used", 2, nAllocated.get());
+        });
+        Thread.sleep(maxIdleTimeMillis * 3);
+        Assert.assertEquals("minIdle resources should be kept allocated", 2, nAllocated.get());
+        Assert.assertEquals("minIdle resources should not be evicted as idle", 2, nAllocations.get());
+        provider.provideResourcesTo(3, values -> {
+            Assert.assertEquals(3, nAllocated.get());
+        });
+        Thread.sleep(maxIdleTimeMillis * 3);
+        Assert.assertEquals("Resources beyond minIdle should be evicted as idle", 2, nAllocated.get());
+    }
+
+    @Test
+    public void testMinIdleWorkerBlocksWithZeroMaxIdleTime() throws InterruptedException {
+        List<Thread> workerThreads = Collections.synchronizedList(new ArrayList<>());
+        PoolConfiguration configuration = PooledResourceProvider.configuration(2, 0)
+                .withMinIdle(1)
+                .withWorkerExecutor(runnable -> {
+                    Thread thread = new Thread(runnable);
+                    thread.setDaemon(true);
+                    workerThreads.add(thread);
+                    thread.start();
+                });
+        PooledResourceProvider.createInstance(configuration, (consumer) -> {
+            consumer.accept(null);
+        });
+        Thread.sleep(100);
+        Assert.assertEquals(1, workerThreads.size());
+        Thread worker = workerThreads.get(0);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("Worker kept for minIdle should block", Thread.State.WAITING, worker.getState());
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testTryProvideResourceToWhenExhausted() throws InterruptedException {
+        ResourceProvider<Void> provider = PooledResourceProvider.createConcurrentInstance(1, 500, (consumer) -> {
+            consumer.accept(null);
+        });
+        CountDownLatch borrowed = new CountDownLatch(1);
+        CountDownLatch returned = new CountDownLatch(1);
+        Thread borrower = new Thread(() -> {
+            provider.provideResourceTo(value -> {
+                borrowed.countDown();
+                try {
+                    returned.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        });
+        borrower.start();
+        borrowed.await();
+        Assert.assertFalse(provider.tryProvideResourceTo(value -> Assert.fail("Should never be executed")));
+        long start = System.currentTimeMillis();
+        Assert.assertFalse(provider.tryProvideResourceTo(value -> Assert.fail("Should never be executed"), 100, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(System.currentTimeMillis() - start >= 100);
+        returned.countDown();
+        borrower.join();
+        Assert.assertTrue(provider.tryProvideResourceTo(value -> {}, 100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testMetrics() throws InterruptedException {
+        final long maxIdleTimeMillis = 100;
+        PoolMetrics metrics = new PoolMetrics();
+        PoolConfiguration configuration = PooledResourceProvider.configuration(10, maxIdleTimeMillis).withMetrics(metrics);
+        ResourceProvider<Void> provider = PooledResourceProvider.createInstance(configuration, (consumer) -> {
+            consumer.accept(null);
+        });
+        provider.provideResourceTo(value -> {
+            PoolMetricsSnapshot snapshot = metrics.snapshot();
+            Assert.assertEquals(1, snapshot.activeCount());
+            Assert.assertEquals(0, snapshot.idleCount());
+            Assert.assertEquals(1, snapshot.allocationCount());
+        });
+        PoolMetricsSnapshot snapshot = metrics.snapshot();
+        Assert.assertEquals(0, snapshot.activeCount());
+        Assert.assertEquals(1, snapshot.idleCount());
+        Assert.assertEquals(1, snapshot.borrowCount());
+        Thread.sleep(maxIdleTimeMillis * 2);
+        snapshot = metrics.snapshot();
+        Assert.assertEquals(0, snapshot.idleCount());
+        Assert.assertEquals(1, snapshot.idleEvictionCount());
+    }
+
+    @Test
+    public void testProvideResourceAsync() throws InterruptedException, ExecutionException {
+        int nRunningMax = 3;
+        AtomicInteger nRunning = new AtomicInteger(0);
+        ResourceProvider<Integer> provider =
+                PooledResourceProvider.createConcurrentInstance(nRunningMax, 500, (consumer) -> consumer.accept(1));
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            CompletionStage<Integer> result = provider.map(value -> value + 1).provideResourceAsync(value -> {
+                Assert.assertTrue(nRunning.incrementAndGet() <= nRunningMax);
+                CompletableFuture<Integer> stage = new CompletableFuture<>();
+                scheduler.schedule(() -> {
+                    nRunning.decrementAndGet();
+                    stage.complete(value);
+                }, 1, TimeUnit.MILLISECONDS);
+                return stage;
+            });
+            results.add(result.toCompletableFuture());
+        }
+        for (CompletableFuture<Integer> result: results) {
+            Assert.assertEquals(Integer.valueOf(2), result.get());
+        }
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testProvideResourceAsyncReturnsWorkerWhenFunctionReturnsNull() throws InterruptedException, TimeoutException {
+        int maxSize = 2;
+        ResourceProvider<Void> provider = PooledResourceProvider.createInstance(maxSize, 500, (consumer) -> {
+            consumer.accept(null);
+        });
+        for (int i = 0; i < maxSize + 1; i++) {
+            CompletableFuture<Void> result = provider.<Void>provideResourceAsync(value -> null).toCompletableFuture();
+            try {
+                result.get(1, TimeUnit.SECONDS);
+                Assert.fail("Null stage should be reported");
+            } catch (ExecutionException ex) {
+                Assert.assertThat(ex.getCause(), CoreMatchers.instanceOf(NullPointerException.class));
+            }
+        }
+        Assert.assertTrue(provider.tryProvideResourcesTo(maxSize, values -> {}, 100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testProvideResourcesToIsAllOrNothing() throws InterruptedException {
+        AtomicInteger nAllocated = new AtomicInteger(0);
+        ResourceProvider<Integer> provider = PooledResourceProvider.createConcurrentInstance(4, 500, (consumer) -> {
+            consumer.accept(nAllocated.incrementAndGet());
+        });
+        provider.provideResourcesTo(4, values -> {
+            Assert.assertEquals(4, new HashSet<>(values).size());
+            Assert.assertFalse(provider.tryProvideResourceTo(value -> Assert.fail("Should never be executed")));
+        });
+        provider.provideResourceTo(value -> {
+            Assert.assertFalse(provider.tryProvideResourcesTo(4, values -> Assert.fail("Should never be executed"), 10, TimeUnit.MILLISECONDS));
+            Assert.assertTrue(provider.tryProvideResourcesTo(3, values -> {}, 10, TimeUnit.MILLISECONDS));
+        });
+        Assert.assertEquals(4, nAllocated.get());
+    }
+
+    @Test
+    public void testProvideResourcesToIsAccountedInMetrics() {
+        PoolMetrics metrics = new PoolMetrics();
+        PoolConfiguration configuration = PooledResourceProvider.configuration(4, 500).withMetrics(metrics);
+        ResourceProvider<Void> provider = PooledResourceProvider.createInstance(configuration, (consumer) -> {
+            consumer.accept(null);
+        });
+        provider.provideResourcesTo(3, values -> {
+            Assert.assertFalse(provider.tryProvideResourcesTo(2, others -> Assert.fail("Should never be executed"), 10, TimeUnit.MILLISECONDS));
+        });
+        PoolMetricsSnapshot snapshot = metrics.snapshot();
+        Assert.assertEquals(3, snapshot.borrowCount());
+        Assert.assertEquals(1, snapshot.borrowTimeoutCount());
+    }
+
+    @Test
+    public void testValidationOnBorrow() {
+        AtomicInteger allocations = new AtomicInteger(0);
+        PoolMetrics metrics = new PoolMetrics();
+        PoolConfiguration configuration = PooledResourceProvider.configuration(1, 1000).withValidationOnBorrow(true).withMetrics(metrics);
+        ResourceProvider<AtomicBoolean> provider = PooledResourceProvider.createInstance(configuration, (consumer) -> {
+            allocations.incrementAndGet();
+            consumer.accept(new AtomicBoolean(true));
+        }, AtomicBoolean::get);
+        provider.provideResourceTo(value -> value.set(false));
+        provider.provideResourceTo(value -> Assert.assertTrue(value.get()));
+        Assert.assertEquals(2, allocations.get());
+        Assert.assertEquals(1, metrics.snapshot().validationFailureCount());
+    }
+
+    @Test
+    public void testBackgroundValidation() throws InterruptedException {
+        final long validationIntervalMillis = 20;
+        AtomicInteger allocations = new AtomicInteger(0);
+        PoolConfiguration configuration = PooledResourceProvider.configuration(1, 1000).withValidationIntervalMillis(validationIntervalMillis);
+        ResourceProvider<AtomicBoolean> provider = PooledResourceProvider.createInstance(configuration, (consumer) -> {
+            allocations.incrementAndGet();
+            consumer.accept(new AtomicBoolean(true));
+        }, AtomicBoolean::get);
+        provider.provideResourceTo(value -> value.set(false));
+        Thread.sleep(validationIntervalMillis * 5);
+        Assert.assertEquals(2, allocations.get());
+        provider.provideResourceTo(value -> Assert.assertTrue(value.get()));
+        Assert.assertEquals(2, allocations.get());
+    }
+
+    @Test
+    public void testMaxLifetime() throws InterruptedException {
+        final long maxLifetimeMillis = 50;
+        AtomicInteger allocations = new AtomicInteger(0);
+        PoolMetrics metrics = new PoolMetrics();
+        PoolConfiguration configuration = PooledResourceProvider.configuration(1, 1000).withMaxLifetimeMillis(maxLifetimeMillis).withMetrics(metrics);
+        ResourceProvider<Integer> provider = PooledResourceProvider.createInstance(configuration, (consumer) -> {
+            consumer.accept(allocations.incrementAndGet());
+        });
+        provider.provideResourceTo(value -> Assert.assertEquals(1, value.intValue()));
+        Thread.sleep(maxLifetimeMillis * 3);
+        Assert.assertTrue(metrics.snapshot().lifetimeEvictionCount() >= 1);
+        provider.provideResourceTo(value -> Assert.assertTrue(value > 1));
+    }
+
+    @Test
+    public void testPrioritizedInstanceServesHigherPriorityFirst() {
+        PoolConfiguration configuration = PooledResourceProvider.configuration(1, 1000);
+        PrioritizedResourceProvider<Integer> pool = PooledResourceProvider.createPrioritizedInstance(configuration, (consumer) -> {
+            consumer.accept(1);
+        });
+        ResourceProvider<Integer> batch = pool.withPriority(BorrowPriority.BATCH);
+        ResourceProvider<Integer> interactive = pool.withPriority(BorrowPriority.INTERACTIVE);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Void> held = new CompletableFuture<>();
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        results.add(batch.provideResourceAsync(value -> held).toCompletableFuture());
+        for (String name: new String[] {"batch1", "batch2"}) {
+            results.add(batch.<Void>provideResourceAsync(value -> {
+                order.add(name);
+                return CompletableFuture.completedFuture(null);
+            }).toCompletableFuture());
+        }
+        results.add(interactive.<Void>provideResourceAsync(value -> {
+            order.add("interactive");
+            return CompletableFuture.completedFuture(null);
+        }).toCompletableFuture());
+        held.complete(null);
+        for (CompletableFuture<Void> result: results) {
+            result.join();
+        }
+        Assert.assertEquals(Arrays.asList("interactive", "batch1", "batch2"), order);
+    }
+
     @Test
     public void testIsAllocated() {
         AtomicInteger nAllocated = new AtomicInteger(0);
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2015, Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class ResourceProviderTest {
+    @Test
+    public void testForExistingReportsFunctionExceptionThroughStage() throws InterruptedException {
+        IllegalArgumentException exception = new IllegalArgumentException();
+        CompletableFuture<Void> result = ResourceProvider.forExisting("a").<Void>provideResourceAsync(value -> {
+            throw exception;
+        }).toCompletableFuture();
+        try {
+            result.get();
+            fail("Exception should be reported");
+        } catch (ExecutionException ex) {
+            assertSame(exception, ex.getCause());
+        }
+    }
+
+    @Test
+    public void testForExistingReportsNullStageThroughStage() throws InterruptedException {
+        CompletableFuture<Void> result = ResourceProvider.forExisting("a").<Void>provideResourceAsync(value -> null).toCompletableFuture();
+        try {
+            result.get();
+            fail("Null stage should be reported");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof NullPointerException);
+        }
+    }
+}
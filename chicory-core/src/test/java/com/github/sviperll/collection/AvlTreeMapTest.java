@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class AvlTreeMapTest {
+    @Test
+    public void testBehavesLikeTreeMap() {
+        Random random = new Random(1);
+        AvlTreeMap<Integer, Integer> map = AvlTreeMap.createInstance();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        List<AvlTreeMap<Integer, Integer>> copies = new ArrayList<>();
+        List<TreeMap<Integer, Integer>> expectedCopies = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            Integer key = random.nextInt(1000);
+            if (random.nextInt(3) == 0)
+                assertEquals(expected.remove(key), map.remove(key));
+            else
+                assertEquals(expected.put(key, i), map.put(key, i));
+            assertEquals(expected.size(), map.size());
+            if (i % 1000 == 0) {
+                copies.add(map.copy());
+                expectedCopies.add(new TreeMap<>(expected));
+            }
+        }
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+        assertEquals(expected.firstKey(), map.firstKey());
+        assertEquals(expected.lastKey(), map.lastKey());
+        for (int i = 0; i < copies.size(); i++)
+            assertEquals(new ArrayList<>(expectedCopies.get(i).entrySet()), new ArrayList<>(copies.get(i).entrySet()));
+    }
+
+    @Test
+    public void testSequentialKeysKeepTreeBalanced() {
+        AvlTreeMap<Integer, Integer> map = AvlTreeMap.createInstance();
+        for (int i = 0; i < 1000000; i++)
+            map.put(i, i);
+        for (int i = 0; i < 1000000; i += 2)
+            map.remove(i);
+        assertEquals(500000, map.size());
+        assertEquals(Integer.valueOf(1), map.firstKey());
+        assertEquals(Integer.valueOf(999999), map.lastKey());
+    }
+
+    @Test
+    public void testChangesTurnOldMapIntoNewMap() {
+        Random random = new Random(1);
+        AvlTreeMap<Integer, Integer> map = AvlTreeMap.createInstance();
+        for (int i = 0; i < 10000; i++)
+            map.put(i, i);
+        for (int round = 0; round < 20; round++) {
+            AvlTreeMap<Integer, Integer> old = map.copy();
+            for (int i = 0; i < 50 * round; i++) {
+                Integer key = random.nextInt(12000);
+                if (random.nextBoolean())
+                    map.remove(key);
+                else
+                    map.put(key, random.nextInt(3));
+            }
+            TreeMap<Integer, Integer> replica = new TreeMap<>(old);
+            List<Integer> keys = new ArrayList<>();
+            AvlTreeMap.changes(old, map).forEach((MapChange<Integer, Integer> change) -> {
+                keys.add(change.key());
+                change.applyTo(replica);
+            });
+            assertEquals(new ArrayList<>(map.entrySet()), new ArrayList<>(replica.entrySet()));
+            List<Integer> sortedKeys = new ArrayList<>(keys);
+            sortedKeys.sort(null);
+            assertEquals(sortedKeys, keys);
+        }
+        assertEquals(0, AvlTreeMap.changes(map, map).count());
+    }
+
+    @Test
+    public void testChangesAreStreamedInKeyOrder() {
+        AvlTreeMap<String, Integer> from = AvlTreeMap.createInstance();
+        from.put("a", 1);
+        from.put("b", 2);
+        from.put("c", 3);
+        AvlTreeMap<String, Integer> to = from.copy();
+        to.remove("a");
+        to.put("b", 4);
+        to.put("d", 5);
+        List<MapChange<String, Integer>> changes = new ArrayList<>();
+        AvlTreeMap.changes(from, to).forEach(changes::add);
+        assertEquals(Arrays.asList(MapChange.remove("a"), MapChange.put("b", 4), MapChange.put("d", 5)), changes);
+        assertEquals(MapChange.remove("a"), AvlTreeMap.changes(from, to).findFirst().get());
+    }
+
+    @Test
+    public void testSubMapViews() {
+        AvlTreeMap<Integer, String> map = AvlTreeMap.createInstance();
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        for (int i = 0; i < 100; i += 2) {
+            map.put(i, "a" + i);
+            expected.put(i, "a" + i);
+        }
+        assertSameEntries(expected.subMap(11, 41), map.subMap(11, 41));
+        assertSameEntries(expected.headMap(11), map.headMap(11));
+        assertSameEntries(expected.tailMap(11), map.tailMap(11));
+        assertSameEntries(expected.subMap(11, 41).tailMap(20).headMap(30), map.subMap(11, 41).tailMap(20).headMap(30));
+        assertEquals(expected.subMap(11, 41).firstKey(), map.subMap(11, 41).firstKey());
+        assertEquals(expected.subMap(11, 41).lastKey(), map.subMap(11, 41).lastKey());
+
+        SortedMap<Integer, String> view = map.subMap(11, 41);
+        view.put(13, "b");
+        view.remove(12);
+        assertNull(view.remove(50));
+        assertEquals("b", map.get(13));
+        assertNull(map.get(12));
+        assertEquals("a50", map.get(50));
+        for (Iterator<Integer> iterator = view.keySet().iterator(); iterator.hasNext();) {
+            if (iterator.next() % 4 == 0)
+                iterator.remove();
+        }
+        assertEquals(43, map.size());
+        assertEquals(8, view.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSubMapRejectsKeysOutOfRange() {
+        AvlTreeMap<Integer, String> map = AvlTreeMap.createInstance();
+        map.subMap(10, 20).put(20, "a");
+    }
+
+    @Test
+    public void testComparator() {
+        AvlTreeMap<String, Integer> map = AvlTreeMap.createInstance(Comparator.reverseOrder());
+        map.put("a", 1);
+        map.put("c", 3);
+        map.put("b", 2);
+        assertEquals("c", map.firstKey());
+        assertEquals("a", map.lastKey());
+        assertEquals(Comparator.reverseOrder(), map.comparator());
+        assertEquals(2, map.headMap("a").size());
+    }
+
+    @Test
+    public void testIteratorSeesStateAtCreation() {
+        AvlTreeMap<Integer, String> map = AvlTreeMap.createInstance();
+        for (int i = 0; i < 100; i++)
+            map.put(i, "a");
+        int count = 0;
+        for (Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator(); iterator.hasNext();) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            assertEquals(count, entry.getKey().intValue());
+            count++;
+            map.put(entry.getKey() + 1000, "b");
+            iterator.remove();
+        }
+        assertEquals(100, count);
+        assertEquals(100, map.size());
+        assertEquals(Integer.valueOf(1000), map.firstKey());
+    }
+
+    private static <K, V> void assertSameEntries(Map<K, V> expected, Map<K, V> actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(actual.entrySet()));
+    }
+}
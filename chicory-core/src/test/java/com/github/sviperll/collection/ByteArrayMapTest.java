@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import com.github.sviperll.ByteArray;
+import com.github.sviperll.stream.Stream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class ByteArrayMapTest {
+    @Test
+    public void testLookupByRegion() {
+        ByteArrayMap<String> map = ByteArrayMap.createInstance();
+        map.put(new byte[] {1, 2, 3}, "a");
+        byte[] buffer = new byte[] {9, 1, 2, 3, 9};
+        assertEquals("a", map.get(buffer, 1, 3));
+        assertTrue(map.containsKey(buffer, 1, 3));
+        assertFalse(map.containsKey(buffer, 0, 3));
+        assertEquals("a", map.get(new ByteArray(new byte[] {1, 2, 3})));
+        assertEquals("a", map.remove(buffer, 1, 3));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testInvalidRegionIsRejected() {
+        ByteArrayMap<String> map = ByteArrayMap.createInstance();
+        map.put(new byte[] {}, "a");
+        map.remove(new byte[] {});
+        byte[] buffer = new byte[] {1, 2, 3};
+        try {
+            map.remove(buffer, 0, -2);
+            fail("IndexOutOfBoundsException expected");
+        } catch (IndexOutOfBoundsException ex) {
+        }
+        try {
+            map.get(buffer, 2, 2);
+            fail("IndexOutOfBoundsException expected");
+        } catch (IndexOutOfBoundsException ex) {
+        }
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testEntrySetValueSurvivesRehash() {
+        ByteArrayMap<Integer> map = ByteArrayMap.createInstance();
+        map.put(new byte[] {0}, 0);
+        Map.Entry<ByteArray, Integer> entry = map.entrySet().iterator().next();
+        for (int i = 1; i < 1000; i++) {
+            map.put(new byte[] {(byte)i, (byte)(i >> 8)}, i);
+        }
+        assertEquals(Integer.valueOf(0), entry.setValue(-1));
+        assertEquals(Integer.valueOf(-1), map.get(new byte[] {0}));
+        for (int i = 1; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i), map.get(new byte[] {(byte)i, (byte)(i >> 8)}));
+        }
+    }
+
+    @Test
+    public void testKeyIsCopied() {
+        ByteArrayMap<String> map = ByteArrayMap.createInstance();
+        byte[] key = new byte[] {1, 2, 3};
+        map.put(key, "a");
+        key[0] = 5;
+        assertNull(map.get(key));
+        assertEquals("a", map.get(new byte[] {1, 2, 3}));
+    }
+
+    @Test
+    public void testBehavesLikeHashMap() {
+        Random random = new Random(1);
+        ByteArrayMap<Integer> map = ByteArrayMap.createInstance();
+        Map<ByteArray, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            byte[] key = new byte[random.nextInt(4)];
+            random.nextBytes(key);
+            int operation = random.nextInt(3);
+            if (operation == 0)
+                assertEquals(expected.put(new ByteArray(key), i), map.put(key, i));
+            else if (operation == 1)
+                assertEquals(expected.remove(new ByteArray(key)), map.remove(key));
+            else
+                assertEquals(expected.get(new ByteArray(key)), map.get(key));
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map);
+        for (Iterator<Map.Entry<ByteArray, Integer>> iterator = map.entrySet().iterator(); iterator.hasNext();) {
+            Map.Entry<ByteArray, Integer> entry = iterator.next();
+            if (entry.getValue() % 2 == 0) {
+                iterator.remove();
+                expected.remove(entry.getKey());
+            }
+        }
+        assertEquals(expected, map);
+    }
+
+    @Test
+    public void testOffHeapInstanceBehavesLikeHashMap() {
+        Random random = new Random(1);
+        ByteArrayMap<ByteArray> map = ByteArrayMap.createOffHeapInstance(0, 1024);
+        Map<ByteArray, ByteArray> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            byte[] key = new byte[random.nextInt(4)];
+            random.nextBytes(key);
+            byte[] value = new byte[random.nextInt(16)];
+            random.nextBytes(value);
+            int operation = random.nextInt(3);
+            if (operation == 0)
+                assertEquals(expected.put(new ByteArray(key), new ByteArray(value)), map.put(key, new ByteArray(value)));
+            else if (operation == 1)
+                assertEquals(expected.remove(new ByteArray(key)), map.remove(key));
+            else
+                assertEquals(expected.get(new ByteArray(key)), map.get(key));
+        }
+        assertEquals(expected, map);
+    }
+
+    @Test
+    public void testOffHeapEntrySetValueSurvivesCompaction() {
+        ByteArrayMap<ByteArray> map = ByteArrayMap.createOffHeapInstance(0, 64);
+        map.put(new byte[] {0}, new ByteArray(new byte[] {0}));
+        Map.Entry<ByteArray, ByteArray> entry = map.entrySet().iterator().next();
+        for (int i = 1; i < 1000; i++) {
+            map.put(new byte[] {(byte)i, (byte)(i >> 8)}, new ByteArray(new byte[i % 7]));
+            map.remove(new byte[] {(byte)i, (byte)(i >> 8)});
+        }
+        entry.setValue(new ByteArray(new byte[] {1, 2, 3}));
+        assertEquals(new ByteArray(new byte[] {1, 2, 3}), map.get(new byte[] {0}));
+        assertEquals(1, map.size());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testOffHeapInstanceRejectsNullValues() {
+        ByteArrayMap<ByteArray> map = ByteArrayMap.createOffHeapInstance();
+        map.put(new byte[] {1}, null);
+    }
+
+    @Test
+    public void testPrefixScan() {
+        SortedByteArrayMap<String> map = ByteArrayMap.createSortedInstance();
+        map.put(new byte[] {1}, "a");
+        map.put(new byte[] {1, 2}, "b");
+        map.put(new byte[] {1, (byte)0xFF}, "c");
+        map.put(new byte[] {2}, "d");
+        map.put(new byte[] {(byte)0xFF, (byte)0xFF}, "e");
+        assertEquals(Arrays.asList("a", "b", "c"), values(map.prefixScan(new byte[] {1})));
+        assertEquals(Arrays.asList("c"), values(map.prefixScan(new byte[] {1, (byte)0xFF})));
+        assertEquals(Arrays.asList("e"), values(map.prefixScan(new byte[] {(byte)0xFF})));
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), values(map.prefixScan(new byte[] {})));
+        assertEquals(Arrays.asList("b", "c"), values(map.range(new byte[] {1, 0}, new byte[] {2})));
+        assertEquals(Arrays.asList("a"), values(map.stream().limit(1)));
+    }
+
+    private static List<String> values(Stream<Map.Entry<ByteArray, String>> stream) {
+        List<String> result = new ArrayList<>();
+        stream.forEach((Map.Entry<ByteArray, String> entry) -> result.add(entry.getValue()));
+        return result;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.util.List;
+import java.util.PrimitiveIterator;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class CArraysTest {
+    @Test
+    public void testSortedListFindsFirstAndLastOccurrence() {
+        List<Integer> list = CArrays.asSortedList(-5, 1, 3, 3, 3, 7, 9);
+        assertEquals(2, list.indexOf(3));
+        assertEquals(4, list.lastIndexOf(3));
+        assertEquals(0, list.indexOf(-5));
+        assertEquals(6, list.lastIndexOf(9));
+        assertEquals(-1, list.indexOf(4));
+        assertEquals(-1, list.lastIndexOf(10));
+        assertEquals(-1, list.indexOf(-6));
+        assertFalse(list.contains(3L));
+    }
+
+    @Test
+    public void testSortedListAgreesWithUnsortedList() {
+        long[] values = {-3, -3, 0, 2, 2, 2, 5, Long.MAX_VALUE};
+        List<Long> sorted = CArrays.asSortedList(values);
+        List<Long> unsorted = CArrays.asList(values);
+        for (long value = -4; value <= 6; value++) {
+            assertEquals(unsorted.indexOf(value), sorted.indexOf(value));
+            assertEquals(unsorted.lastIndexOf(value), sorted.lastIndexOf(value));
+        }
+        assertTrue(sorted.contains(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testSortedByteListUsesSignedOrder() {
+        List<Byte> list = CArrays.asSortedList((byte)-128, (byte)-1, (byte)0, (byte)127);
+        assertEquals(1, list.indexOf((byte)-1));
+        assertEquals(3, list.indexOf((byte)127));
+    }
+
+    @Test
+    public void testIntListBulkOperationsWriteThrough() {
+        int[] values = {3, Integer.MAX_VALUE, 1, Integer.MAX_VALUE};
+        IntList list = CArrays.asIntList(values);
+        assertEquals(2L * Integer.MAX_VALUE + 4, list.sum());
+        list.sort();
+        assertArrayEquals(new int[] {1, 3, Integer.MAX_VALUE, Integer.MAX_VALUE}, values);
+        int[] destination = new int[6];
+        list.copyInto(destination, 2);
+        assertArrayEquals(new int[] {0, 0, 1, 3, Integer.MAX_VALUE, Integer.MAX_VALUE}, destination);
+        list.setInt(0, 2);
+        assertArrayEquals(new int[] {2, 3, Integer.MAX_VALUE, Integer.MAX_VALUE}, list.toIntArray());
+        assertEquals(5, list.intStream().limit(2).sum());
+    }
+
+    @Test
+    public void testDoubleListStreamsAndIterates() {
+        DoubleList list = CArrays.asDoubleList(0.5, 1.5, 2.0);
+        assertEquals(4.0, list.sum(), 0.0);
+        assertEquals(2.0, list.doubleStream().max().getAsDouble(), 0.0);
+        PrimitiveIterator.OfDouble iterator = list.doubleIterator();
+        assertEquals(0.5, iterator.nextDouble(), 0.0);
+        assertEquals(1, list.indexOfDouble(1.5));
+        assertEquals(3, list.spliterator().getExactSizeIfKnown());
+    }
+}
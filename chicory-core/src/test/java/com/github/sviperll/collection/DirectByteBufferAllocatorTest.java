@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class DirectByteBufferAllocatorTest {
+    @Test
+    public void testBuffersAreDirectSlicesOfSlab() {
+        DirectByteBufferAllocator allocator = DirectByteBufferAllocator.createInstance(100, 4);
+        Map<java.nio.ByteBuffer, Boolean> seen = new IdentityHashMap<>();
+        for (int i = 0; i < 4; i++) {
+            ByteBufferAllocator.ByteBuffer buffer = allocator.allocateByteBuffer();
+            assertFalse(buffer.hasArray());
+            java.nio.ByteBuffer nio = buffer.nioBuffer();
+            assertTrue(nio.isDirect());
+            assertEquals(100, nio.capacity());
+            assertEquals(100, nio.remaining());
+            assertNull(seen.put(nio, Boolean.TRUE));
+        }
+        assertEquals(400, allocator.reservedBytes());
+        allocator.allocateByteBuffer();
+        assertEquals(800, allocator.reservedBytes());
+    }
+
+    @Test
+    public void testFreedBufferIsReusedAndCleared() {
+        DirectByteBufferAllocator allocator = DirectByteBufferAllocator.createInstance(16, 4);
+        ByteBufferAllocator.ByteBuffer buffer = allocator.allocateByteBuffer();
+        java.nio.ByteBuffer nio = buffer.nioBuffer();
+        nio.putInt(42).flip();
+        buffer.free();
+        ByteBufferAllocator.ByteBuffer reused = allocator.allocateByteBuffer();
+        assertTrue(nio == reused.nioBuffer());
+        assertEquals(0, nio.position());
+        assertEquals(16, nio.limit());
+        assertEquals(42, nio.getInt(0));
+        assertEquals(64, allocator.reservedBytes());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFreedBufferCanNotBeUsed() {
+        ByteBufferAllocator.ByteBuffer buffer = DirectByteBufferAllocator.createInstance(16).allocateByteBuffer();
+        buffer.free();
+        buffer.free();
+    }
+
+    @Test
+    public void testHeapBufferNioViewSharesArray() {
+        ByteBufferAllocator.ByteBuffer buffer = new PlainByteBufferAllocator(8).allocateByteBuffer();
+        assertTrue(buffer.hasArray());
+        buffer.nioBuffer().put(0, (byte)7);
+        assertEquals(7, buffer.array()[0]);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class HashTrieMapTest {
+    private static class CollidingKey {
+        private final int id;
+
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % 3;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey)o).id == id;
+        }
+    }
+
+    @Test
+    public void testBehavesLikeHashMap() {
+        Random random = new Random(1);
+        HashTrieMap<Object, Integer> map = HashTrieMap.createInstance();
+        Map<Object, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            int id = random.nextInt(1000);
+            Object key = id == 0 ? null : id % 5 == 0 ? new CollidingKey(id) : Integer.valueOf(id);
+            if (random.nextInt(3) == 0)
+                assertEquals(expected.remove(key), map.remove(key));
+            else
+                assertEquals(expected.put(key, i), map.put(key, i));
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+    }
+
+    @Test
+    public void testChangesTurnOldMapIntoNewMap() {
+        Random random = new Random(1);
+        HashTrieMap<Object, Integer> map = HashTrieMap.createInstance();
+        for (int i = 0; i < 10000; i++)
+            map.put(i % 100 == 0 ? new CollidingKey(i) : Integer.valueOf(i), i);
+        for (int round = 0; round < 20; round++) {
+            HashTrieMap<Object, Integer> old = map.copy();
+            for (int i = 0; i < 50 * round; i++) {
+                int id = random.nextInt(12000);
+                Object key = id == 0 ? null : id % 100 == 0 ? new CollidingKey(id) : Integer.valueOf(id);
+                if (random.nextBoolean())
+                    map.remove(key);
+                else
+                    map.put(key, random.nextInt(3));
+            }
+            Map<Object, Integer> replica = new HashMap<>(old);
+            List<MapChange<Object, Integer>> changes = new ArrayList<>();
+            HashTrieMap.changes(old, map).forEach(changes::add);
+            for (MapChange<Object, Integer> change: changes)
+                change.applyTo(replica);
+            assertEquals(map, replica);
+            assertEquals(changes.size(), MapChange.changesBetween(new HashMap<>(old), new HashMap<>(map)).count());
+        }
+        assertEquals(0, HashTrieMap.changes(map, map).count());
+    }
+
+    @Test
+    public void testCopiesAreIndependent() {
+        HashTrieMap<Integer, String> map = HashTrieMap.createInstance();
+        for (int i = 0; i < 1000; i++)
+            map.put(i, "a");
+        HashTrieMap<Integer, String> copy = map.copy();
+        for (int i = 0; i < 1000; i += 2)
+            copy.remove(i);
+        map.put(1, "b");
+        assertEquals(1000, map.size());
+        assertEquals("b", map.get(1));
+        assertEquals(500, copy.size());
+        assertEquals("a", copy.get(1));
+        assertNull(copy.get(0));
+    }
+
+    @Test
+    public void testIteratorSeesStateAtCreation() {
+        HashTrieMap<Integer, String> map = HashTrieMap.createInstance();
+        for (int i = 0; i < 100; i++)
+            map.put(i, "a");
+        int count = 0;
+        for (Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator(); iterator.hasNext();) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            count++;
+            map.put(entry.getKey() + 1000, "b");
+            iterator.remove();
+        }
+        assertEquals(100, count);
+        assertEquals(100, map.size());
+    }
+}
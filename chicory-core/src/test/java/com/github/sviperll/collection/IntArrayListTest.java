@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.util.Arrays;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class IntArrayListTest {
+    @Test
+    public void testGrowsAndBehavesLikeList() {
+        IntArrayList list = IntArrayList.createInstance();
+        for (int i = 0; i < 100; i++)
+            list.addInt(i * 2);
+        assertEquals(100, list.size());
+        assertEquals(84, list.getInt(42));
+        assertEquals(42, list.indexOfInt(84));
+        assertEquals(-1, list.indexOfInt(85));
+        assertEquals(10, list.removeIntAt(5));
+        list.addInt(0, -1);
+        assertEquals(-1, list.getInt(0));
+        assertEquals(Arrays.asList(-1, 0, 2), list.subList(0, 3));
+    }
+
+    @Test
+    public void testSortAndToIntArray() {
+        IntArrayList list = IntArrayList.copyOf(3, 1, 2);
+        list.sort();
+        assertArrayEquals(new int[] {1, 2, 3}, list.toIntArray());
+        assertEquals(6, list.intStream().sum());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexBeyondSizeIsRejected() {
+        IntArrayList list = IntArrayList.createInstance(10);
+        list.addInt(1);
+        list.getInt(1);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class IntHashSetTest {
+    @Test
+    public void testZeroIsSupported() {
+        IntHashSet set = IntHashSet.createInstance();
+        assertFalse(set.containsInt(0));
+        assertTrue(set.addInt(0));
+        assertFalse(set.addInt(0));
+        assertTrue(set.containsInt(0));
+        assertEquals(1, set.size());
+        assertTrue(set.removeInt(0));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void testBehavesLikeHashSet() {
+        Random random = new Random(1);
+        IntHashSet set = IntHashSet.createInstance();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            int value = random.nextInt(500) - 100;
+            if (random.nextInt(3) == 0)
+                assertEquals(expected.remove(value), set.removeInt(value));
+            else
+                assertEquals(expected.add(value), set.addInt(value));
+        }
+        assertEquals(expected, set);
+        assertEquals(set, expected);
+    }
+
+    @Test
+    public void testIteratorRemovalVisitsEveryValueOnce() {
+        Random random = new Random(2);
+        IntHashSet set = IntHashSet.createInstance();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            int value = random.nextInt();
+            set.addInt(value);
+            expected.add(value);
+        }
+        Set<Integer> visited = new HashSet<>();
+        for (Iterator<Integer> iterator = set.iterator(); iterator.hasNext();) {
+            int value = iterator.next();
+            assertTrue(visited.add(value));
+            if (random.nextBoolean()) {
+                iterator.remove();
+                expected.remove(value);
+            }
+        }
+        assertEquals(1000, visited.size());
+        assertEquals(expected, set);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class LeakDetectingByteBufferAllocatorTest {
+    @Test
+    public void testOutstandingBuffersAreAccounted() {
+        LeakDetectingByteBufferAllocator allocator
+                = LeakDetectingByteBufferAllocator.createInstance(new PlainByteBufferAllocator(100), 1);
+        ByteBufferAllocator.ByteBuffer buffer1 = allocator.allocateByteBuffer();
+        ByteBufferAllocator.ByteBuffer buffer2 = allocator.allocateByteBuffer();
+        assertEquals(2, allocator.outstandingCount());
+        assertEquals(200, allocator.outstandingBytes());
+        buffer1.free();
+        assertEquals(1, allocator.outstandingCount());
+        assertEquals(100, allocator.outstandingBytes());
+        assertEquals(2, allocator.allocationCount());
+        assertEquals(1, allocator.freeCount());
+        buffer2.free();
+        assertEquals(0, allocator.outstandingBytes());
+    }
+
+    @Test
+    public void testRequestedSizeOfPooledBuffersIsAccounted() {
+        LeakDetectingByteBufferAllocator allocator
+                = LeakDetectingByteBufferAllocator.createInstance(PoolingByteBufferAllocator.createInstance(1000, 1 << 20));
+        ByteBufferAllocator.ByteBuffer buffer = allocator.allocateByteBuffer();
+        assertEquals(1000, buffer.size());
+        assertEquals(1000, allocator.outstandingBytes());
+        buffer.free();
+        assertEquals(0, allocator.outstandingBytes());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDoubleFreeIsDetected() {
+        ByteBufferAllocator.ByteBuffer buffer
+                = LeakDetectingByteBufferAllocator.createInstance(new PlainByteBufferAllocator(16)).allocateByteBuffer();
+        buffer.free();
+        buffer.free();
+    }
+
+    @Test
+    public void testUnreachableBufferIsDetectedAsLeak() throws InterruptedException {
+        LeakDetectingByteBufferAllocator allocator
+                = LeakDetectingByteBufferAllocator.createInstance(DirectByteBufferAllocator.createInstance(64));
+        allocator.allocateByteBuffer().free();
+        allocator.allocateByteBuffer();
+        for (int i = 0; i < 100 && allocator.leakCount() == 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+            allocator.detectLeaks();
+        }
+        assertEquals(1, allocator.leakCount());
+        assertEquals(64, allocator.leakedBytes());
+        assertEquals(0, allocator.outstandingCount());
+        assertEquals(1, allocator.freeCount());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class LongObjectHashMapTest {
+    @Test
+    public void testBehavesLikeHashMap() {
+        Random random = new Random(1);
+        LongObjectHashMap<String> map = LongObjectHashMap.createInstance();
+        Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            long key = random.nextInt(500) - 100;
+            if (random.nextInt(3) == 0)
+                assertEquals(expected.remove(key), map.remove(key));
+            else
+                assertEquals(expected.put(key, "value" + i), map.put(key, "value" + i));
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+    }
+
+    @Test
+    public void testEntryIteratorWritesThrough() {
+        LongObjectHashMap<String> map = LongObjectHashMap.createInstance();
+        for (long key = 0; key < 100; key++)
+            map.put(key, "a");
+        for (Iterator<Map.Entry<Long, String>> iterator = map.entrySet().iterator(); iterator.hasNext();) {
+            Map.Entry<Long, String> entry = iterator.next();
+            if (entry.getKey() % 2 == 0)
+                iterator.remove();
+            else
+                entry.setValue("b");
+        }
+        assertEquals(50, map.size());
+        assertNull(map.get(0L));
+        assertEquals("b", map.get(1L));
+    }
+
+    @Test
+    public void testComputeIfAbsent() {
+        LongObjectHashMap<StringBuilder> map = LongObjectHashMap.createInstance();
+        map.computeIfAbsent(7, key -> new StringBuilder()).append("x");
+        map.computeIfAbsent(7, key -> new StringBuilder()).append("y");
+        assertEquals("xy", map.get(7).toString());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class PoolingByteBufferAllocatorTest {
+    @Test
+    public void testFreedBufferIsReused() {
+        PoolingByteBufferAllocator allocator = PoolingByteBufferAllocator.createInstance(65536, 1 << 20);
+        ByteBufferAllocator.ByteBuffer buffer = allocator.allocateByteBuffer();
+        byte[] array = buffer.array();
+        assertEquals(65536, array.length);
+        buffer.free();
+        assertSame(array, allocator.allocateByteBuffer().array());
+    }
+
+    @Test
+    public void testSizeIsRoundedUpToSizeClass() {
+        PoolingByteBufferAllocator allocator = PoolingByteBufferAllocator.createInstance(1000, 1 << 20);
+        ByteBufferAllocator.ByteBuffer buffer = allocator.allocateByteBuffer();
+        assertEquals(1024, buffer.array().length);
+        assertEquals(1000, buffer.size());
+        assertEquals(1000, buffer.nioBuffer().limit());
+        assertEquals(1000, buffer.nioBuffer().capacity());
+        assertEquals(64, allocator.withSize(0).allocateByteBuffer().array().length);
+        assertEquals(0, allocator.withSize(0).allocateByteBuffer().size());
+    }
+
+    @Test
+    public void testRetainedBytesAreLimited() {
+        PoolingByteBufferAllocator allocator = PoolingByteBufferAllocator.createInstance(1 << 20, 1 << 20);
+        ByteBufferAllocator.ByteBuffer buffer1 = allocator.allocateByteBuffer();
+        ByteBufferAllocator.ByteBuffer buffer2 = allocator.allocateByteBuffer();
+        buffer1.free();
+        buffer2.free();
+        assertEquals(1 << 20, allocator.retainedBytes());
+        allocator.allocateByteBuffer();
+        assertEquals(0, allocator.retainedBytes());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDoubleFreeIsDetected() {
+        PoolingByteBufferAllocator allocator = PoolingByteBufferAllocator.createInstance(1024, 1 << 20);
+        ByteBufferAllocator.ByteBuffer buffer = allocator.allocateByteBuffer();
+        buffer.free();
+        buffer.free();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class VectorTrieListTest {
+    @Test
+    public void testBehavesLikeArrayList() {
+        Random random = new Random(1);
+        VectorTrieList<Integer> list = VectorTrieList.createInstance();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            int operation = random.nextInt(10);
+            if (operation < 5) {
+                list.add(i);
+                expected.add(i);
+            } else if (operation < 7 && !expected.isEmpty()) {
+                assertEquals(expected.remove(expected.size() - 1), list.removeLast());
+            } else if (!expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.set(index, -i), list.set(index, -i));
+            }
+            assertEquals(expected.size(), list.size());
+        }
+        assertEquals(expected, list);
+    }
+
+    @Test
+    public void testCopiesAreIndependent() {
+        VectorTrieList<Integer> list = VectorTrieList.createInstance();
+        for (int i = 0; i < 5000; i++)
+            list.add(i);
+        VectorTrieList<Integer> copy = list.copy();
+        for (int i = 0; i < 5000; i += 3)
+            copy.set(i, -1);
+        copy.removeLast();
+        list.add(5000);
+        assertEquals(5001, list.size());
+        assertEquals(4999, copy.size());
+        for (int i = 0; i < 4999; i++) {
+            assertEquals(Integer.valueOf(i), list.get(i));
+            assertEquals(Integer.valueOf(i % 3 == 0 ? -1 : i), copy.get(i));
+        }
+    }
+
+    @Test
+    public void testInsertionAndRemovalInTheMiddle() {
+        VectorTrieList<String> list = VectorTrieList.createInstance();
+        list.add("a");
+        list.add("c");
+        list.add(1, "b");
+        list.add(0, "_");
+        assertEquals("[_, a, b, c]", list.toString());
+        assertEquals("a", list.remove(1));
+        list.subList(0, 1).clear();
+        assertEquals("[b, c]", list.toString());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection.snapshotable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class ConcurrentSnapshotableMapTest {
+    @Test
+    public void testSnapshotIsNotAffectedByWrites() {
+        ConcurrentSnapshotableMap<String, Integer> map = new ConcurrentSnapshotableMap<>();
+        map.put("a", 1);
+        map.put("b", 2);
+        Map<? extends String, ? extends Integer> snapshot = Snapshot.unmodifiableMapSnapshotOf(map);
+        Map<String, Integer> expected = new HashMap<>(map);
+        map.remove("a");
+        map.put("b", 3);
+        map.putIfAbsent("c", 4);
+        assertEquals(expected, snapshot);
+        assertNull(map.get("a"));
+        assertEquals(Integer.valueOf(3), map.get("b"));
+        assertEquals(Integer.valueOf(4), map.get("c"));
+    }
+
+    @Test
+    public void testConcurrentMergesAreNotLost() throws InterruptedException {
+        final ConcurrentSnapshotableMap<String, Integer> map = new ConcurrentSnapshotableMap<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++)
+                        map.merge("counter", 1, Integer::sum);
+                }
+            }));
+        }
+        for (Thread thread: threads)
+            thread.start();
+        for (Thread thread: threads)
+            thread.join();
+        assertEquals(Integer.valueOf(40000), map.get("counter"));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullValuesAreRejected() {
+        new ConcurrentSnapshotableMap<String, Integer>().put("a", null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullKeyLookupIsRejected() {
+        new ConcurrentSnapshotableMap<String, Integer>().get(null);
+    }
+
+    @Test
+    public void testIteratorIsNotAffectedByWrites() {
+        ConcurrentSnapshotableMap<Integer, Integer> map = new ConcurrentSnapshotableMap<>();
+        for (int i = 0; i < 1000; i++)
+            map.put(i, i);
+        Map<Integer, Integer> expected = new HashMap<>(map);
+        Map<Integer, Integer> iterated = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry: map.entrySet()) {
+            iterated.put(entry.getKey(), entry.getValue());
+            map.put(entry.getKey() + 1000, -1);
+            map.remove(entry.getKey() / 2);
+        }
+        assertEquals(expected, iterated);
+    }
+}
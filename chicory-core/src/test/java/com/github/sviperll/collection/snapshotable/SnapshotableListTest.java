@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection.snapshotable;
+
+import com.github.sviperll.collection.ListFactories;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class SnapshotableListTest {
+    @Test
+    public void testAlternatingSnapshotsAndAppends() {
+        SnapshotableList<Integer> list = new SnapshotableList<>(ListFactories.<Integer>vectorTrieList());
+        List<List<? extends Integer>> snapshots = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            list.add(i);
+            snapshots.add(Snapshot.unmodifiableListSnapshotOf(list));
+        }
+        list.set(0, -1);
+        for (int i = 0; i < snapshots.size(); i += 100) {
+            List<? extends Integer> snapshot = snapshots.get(i);
+            assertEquals(i + 1, snapshot.size());
+            assertEquals(Integer.valueOf(0), snapshot.get(0));
+            assertEquals(Integer.valueOf(i), snapshot.get(i));
+        }
+        assertEquals(Integer.valueOf(-1), list.get(0));
+    }
+
+    @Test
+    public void testCopyingConstructorKeepsFactory() {
+        SnapshotableList<String> list = new SnapshotableList<>(ListFactories.<String>arrayList(), Arrays.asList("a", "b"));
+        List<? extends String> snapshot = Snapshot.unmodifiableListSnapshotOf(list);
+        list.add("c");
+        assertEquals(Arrays.asList("a", "b"), snapshot);
+        assertEquals(Arrays.asList("a", "b", "c"), list);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection.snapshotable;
+
+import com.github.sviperll.collection.MapChange;
+import com.github.sviperll.collection.MapFactories;
+import com.github.sviperll.collection.MapFactory;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class SnapshotableMapTest {
+    @Test
+    public void testSnapshotIsNotAffectedByWrites() {
+        SnapshotableMap<String, Integer> map = new SnapshotableMap<>(MapFactories.<String, Integer>hashTrieMap());
+        for (int i = 0; i < 1000; i++)
+            map.put("key" + i, i);
+        Map<? extends String, ? extends Integer> snapshot = Snapshot.unmodifiableMapSnapshotOf(map);
+        Map<String, Integer> expected = new HashMap<>(map);
+        map.put("key1", -1);
+        map.remove("key2");
+        map.put("new", 0);
+        assertEquals(expected, snapshot);
+        assertEquals(1000, map.size());
+        assertEquals(Integer.valueOf(-1), map.get("key1"));
+        assertFalse(map.containsKey("key2"));
+    }
+
+    @Test
+    public void testIteratorWritesDoNotChangeSnapshot() {
+        SnapshotableMap<Integer, String> map = new SnapshotableMap<>(MapFactories.<Integer, String>hashMap());
+        for (int i = 0; i < 10; i++)
+            map.put(i, "a");
+        Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator();
+        Map.Entry<Integer, String> first = iterator.next();
+        first.setValue("b");
+        Map<? extends Integer, ? extends String> snapshot = Snapshot.unmodifiableMapSnapshotOf(map);
+        Map<Integer, String> expected = new HashMap<>(map);
+        int count = 1;
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            count++;
+            if (entry.getKey() % 2 == 0)
+                iterator.remove();
+            else
+                entry.setValue("c");
+        }
+        assertEquals(10, count);
+        assertEquals(expected, snapshot);
+        assertEquals(first.getKey() % 2 == 0 ? 6 : 5, map.size());
+        assertEquals("b", map.get(first.getKey()));
+        for (Map.Entry<Integer, String> entry: map.entrySet()) {
+            if (!entry.getKey().equals(first.getKey()))
+                assertEquals("c", entry.getValue());
+        }
+    }
+
+    @Test
+    public void testChangesBetweenSnapshotsReplicateMap() {
+        assertChangesReplicateMap(MapFactories.<Integer, String>hashTrieMap());
+        assertChangesReplicateMap(MapFactories.<Integer, String>avlTreeMap());
+        assertChangesReplicateMap(MapFactories.<Integer, String>hashMap());
+    }
+
+    private static void assertChangesReplicateMap(MapFactory<Integer, String> factory) {
+        SnapshotableMap<Integer, String> map = new SnapshotableMap<>(factory);
+        for (int i = 0; i < 1000; i++)
+            map.put(i, "a");
+        Map<Integer, String> replica = new HashMap<>(map);
+        Map<? extends Integer, ? extends String> previous = Snapshot.unmodifiableMapSnapshotOf(map);
+        for (int round = 0; round < 10; round++) {
+            for (int i = round; i < 1000; i += 97)
+                map.remove(i);
+            for (int i = round; i < 1000; i += 89)
+                map.put(i + round * 1000, "b" + round);
+            Map<? extends Integer, ? extends String> current = Snapshot.unmodifiableMapSnapshotOf(map);
+            Snapshot.changesBetween(previous, current).forEach((MapChange<Integer, String> change) -> change.applyTo(replica));
+            assertEquals(map, replica);
+            previous = current;
+        }
+        assertEquals(0, Snapshot.changesBetween(previous, map).count());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016, Victor Nazarov <asviraspossible@gmail.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation and/or
+ *     other materials provided with the distribution.
+ *
+ *  3. Neither the name of the copyright holder nor the names of its contributors
+ *     may be used to endorse or promote products derived from this software
+ *     without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ *  THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ *  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ *  ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *   LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE,
+ *  EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.sviperll.collection.snapshotable;
+
+import com.github.sviperll.collection.MapFactories;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Victor Nazarov &lt;asviraspossible@gmail.com&gt;
+ */
+public class SnapshotableSortedMapTest {
+    @Test
+    public void testSnapshotIsNotAffectedByWrites() {
+        SnapshotableSortedMap<Integer, String> map = new SnapshotableSortedMap<>(MapFactories.<Integer, String>avlTreeMap());
+        for (int i = 0; i < 1000; i++)
+            map.put(i, "a" + i);
+        Map<? extends Integer, ? extends String> snapshot = Snapshot.unmodifiableMapSnapshotOf(map);
+        TreeMap<Integer, String> expected = new TreeMap<>(map);
+        map.put(1, "b");
+        map.remove(2);
+        map.put(-1, "c");
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(snapshot.entrySet()));
+        assertEquals(1000, map.size());
+        assertEquals(Integer.valueOf(-1), map.firstKey());
+        assertEquals("b", map.get(1));
+        assertFalse(map.containsKey(2));
+    }
+
+    @Test
+    public void testSubMapWritesDoNotChangeSnapshot() {
+        SnapshotableSortedMap<Integer, String> map = new SnapshotableSortedMap<>(MapFactories.<Integer, String>avlTreeMap());
+        for (int i = 0; i < 100; i++)
+            map.put(i, "a");
+        SortedMap<Integer, String> view = map.subMap(10, 20);
+        Iterator<Map.Entry<Integer, String>> iterator = view.entrySet().iterator();
+        iterator.next().setValue("b");
+        Map<? extends Integer, ? extends String> snapshot = Snapshot.unmodifiableMapSnapshotOf(map);
+        TreeMap<Integer, String> expected = new TreeMap<>(map);
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            if (entry.getKey() % 2 == 0)
+                iterator.remove();
+            else
+                entry.setValue("c");
+        }
+        view.put(10, "d");
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(snapshot.entrySet()));
+        assertEquals(96, map.size());
+        assertEquals(6, view.size());
+        assertEquals("d", map.get(10));
+        assertEquals("c", map.get(11));
+        assertFalse(map.containsKey(12));
+        assertEquals(Integer.valueOf(19), view.lastKey());
+        assertEquals(Arrays.asList(11, 13), new ArrayList<>(view.subMap(11, 15).keySet()));
+    }
+
+    @Test
+    public void testSortedSetSnapshot() {
+        SnapshotableSortedSet<String> set = new SnapshotableSortedSet<>(MapFactories.<String, Boolean>avlTreeMap(), Arrays.asList("c", "a", "b"));
+        Set<? extends String> snapshot = Snapshot.unmodifiableSetSnapshotOf(set);
+        assertTrue(set.add("d"));
+        assertFalse(set.add("a"));
+        assertTrue(set.remove("b"));
+        SortedSet<String> head = set.headSet("c");
+        assertTrue(head.add("0"));
+        assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<>(snapshot));
+        assertEquals(Arrays.asList("0", "a", "c", "d"), new ArrayList<>(set));
+        assertEquals("0", set.first());
+        assertEquals("d", set.last());
+        assertEquals(2, head.size());
+    }
+
+    @Test
+    public void testSetSnapshot() {
+        SnapshotableSet<Integer> set = new SnapshotableSet<>(MapFactories.<Integer, Boolean>hashTrieMap());
+        for (int i = 0; i < 100; i++)
+            set.add(i);
+        Set<? extends Integer> snapshot = Snapshot.unmodifiableSetSnapshotOf(set);
+        assertTrue(Snapshot.unmodifiableSetSnapshotOf(snapshot) == snapshot);
+        List<Integer> removed = new ArrayList<>();
+        for (Iterator<Integer> iterator = set.iterator(); iterator.hasNext();) {
+            Integer element = iterator.next();
+            if (element % 2 == 0) {
+                iterator.remove();
+                removed.add(element);
+            }
+        }
+        assertEquals(50, removed.size());
+        assertEquals(100, snapshot.size());
+        assertEquals(50, set.size());
+        assertTrue(snapshot.containsAll(removed));
+        assertFalse(set.contains(0));
+    }
+}